@@ -21,30 +21,61 @@ package org.wso2.extension.siddhi.io.report.generators;
 import ar.com.fdvs.dj.domain.DynamicReport;
 import ar.com.fdvs.dj.domain.builders.DynamicReportBuilder;
 import ar.com.fdvs.dj.domain.chart.DJChart;
+import net.sf.jasperreports.crosstabs.JRCrosstab;
+import net.sf.jasperreports.engine.JRBand;
+import net.sf.jasperreports.engine.JRChild;
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRDataset;
+import net.sf.jasperreports.engine.JRElementGroup;
+import net.sf.jasperreports.engine.JRReport;
+import net.sf.jasperreports.engine.JRSubreport;
 import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
 import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
 import org.wso2.extension.siddhi.io.report.util.DynamicDataProvider;
 import org.wso2.extension.siddhi.io.report.util.DynamicLayoutManager;
+import org.wso2.extension.siddhi.io.report.util.ReportColumnSchema;
 import org.wso2.extension.siddhi.io.report.util.ReportConstants;
+import org.wso2.extension.siddhi.io.report.util.ReportEventBuffer;
+import org.wso2.extension.siddhi.io.report.util.ReportEventDataSource;
+import org.wso2.extension.siddhi.io.report.util.ReportRenderContext;
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
 /**
- * This class is the implementation of the report generation logic.
+ * This class is the implementation of the report generation logic. If the columns are given, the layout of the report
+ * only depends on the report properties, hence it is built and compiled for the first report and every report is
+ * filled with the same compiled layout. The events of a JSON payload are then decoded while the report is filled,
+ * unless the layout may read its data more than once, in which case they are decoded into an event buffer first.
  */
 public class DynamicReportGenerator extends ReportGenerator {
-    private DynamicReportBuilder reportBuilder;
     private Map<String, String> reportProperties;
     private String chartTitle;
     private String categoryName;
     private String seriesName;
+    private ReportColumnSchema columnSchema;
+    private volatile CompiledLayout compiledLayout;
 
     public DynamicReportGenerator(Map<String, String> reportProperties) {
+        this(reportProperties, null);
+    }
+
+    /**
+     * Creates a generator which renders the buffered events with the given columns. If the columns are not given,
+     * they are derived from the values of the first event in each report.
+     *
+     * @param reportProperties the report properties of the sink
+     * @param columnSchema     the columns of the report, or null
+     */
+    public DynamicReportGenerator(Map<String, String> reportProperties, ReportColumnSchema columnSchema) {
         super(reportProperties);
         this.reportProperties = reportProperties;
+        this.columnSchema = columnSchema;
         initializeReportContent();
     }
 
@@ -56,18 +87,129 @@ public class DynamicReportGenerator extends ReportGenerator {
 
     @Override
     public void generateReport(Object payload) {
+        if (columnSchema != null && payload instanceof String) {
+            DynamicDataProvider dataProvider = new DynamicDataProvider(reportProperties, columnSchema);
+            String jsonPayload = (String) payload;
+            JRDataSource dataSource;
+            if (getCompiledLayout().rewindRequired) {
+                dataSource = dataProvider.getData(ReportEventBuffer.fromPayload(columnSchema.getColumnNames(),
+                        columnSchema.getColumnTypes(), jsonPayload));
+            } else {
+                // the events are decoded while the report is filled, since the columns are known without decoding
+                // them.
+                dataSource = dataProvider.getStreamingData(jsonPayload);
+            }
+            renderReport(new ReportRenderContext(dataProvider.resolveOutputPath(jsonPayload), null,
+                    setParameters(reportProperties), dataSource));
+            return;
+        }
         DynamicDataProvider dataProvider = new DynamicDataProvider(reportProperties);
-        reportBuilder = new DynamicReportBuilder();
+        DynamicReportBuilder reportBuilder = new DynamicReportBuilder();
         List<Map<String, Object>> data = dataProvider.getData(payload, reportBuilder);
-        JRBeanCollectionDataSource dataSource = new JRBeanCollectionDataSource(data);
-        Map<String, Object> parameters = setParameters(reportProperties);
-        DynamicLayoutManager reportLayout = getLayout(reportProperties);
+        ReportRenderContext renderContext = new ReportRenderContext(dataProvider.resolveOutputPath(data), null,
+                setParameters(reportProperties), new JRBeanCollectionDataSource(data));
+        renderReport(renderContext, reportBuilder, dataProvider);
+    }
+
+    @Override
+    public void generateReport(ReportEventBuffer buffer, String outputPath) {
+        if (columnSchema != null) {
+            DynamicDataProvider dataProvider = new DynamicDataProvider(reportProperties, columnSchema);
+            renderReport(new ReportRenderContext(outputPath, null, setParameters(reportProperties),
+                    dataProvider.getData(buffer)));
+            return;
+        }
+        DynamicDataProvider dataProvider = new DynamicDataProvider(reportProperties);
+        DynamicReportBuilder reportBuilder = new DynamicReportBuilder();
+        ReportEventDataSource dataSource = dataProvider.getData(buffer, reportBuilder);
+        ReportRenderContext renderContext = new ReportRenderContext(outputPath, null, setParameters(reportProperties),
+                dataSource);
+        renderReport(renderContext, reportBuilder, dataProvider);
+    }
 
+    private void renderReport(ReportRenderContext renderContext, DynamicReportBuilder reportBuilder,
+                              DynamicDataProvider dataProvider) {
+        Map<String, Object> parameters = renderContext.copyParameters();
+        DynamicLayoutManager reportLayout = getLayout(reportProperties);
         reportBuilder.setTemplateFile(reportProperties.get(ReportConstants.TEMPLATE));
         addChartTo(reportProperties, reportBuilder, dataProvider, parameters);
         DynamicReport report = reportBuilder.build();
-        JasperPrint jasperPrint = generateReportPrint(report, reportLayout, dataSource, parameters);
-        saveReport(jasperPrint, reportProperties.get(ReportConstants.OUTPUT_PATH));
+        fillAndSaveReport(compileReport(report, reportLayout, parameters), parameters, renderContext);
+    }
+
+    private void renderReport(ReportRenderContext renderContext) {
+        CompiledLayout layout = getCompiledLayout();
+        // the generated parameters are copied for each fill, as the fill adds its own parameters to the map.
+        Map<String, Object> parameters = new HashMap<>(layout.parameters);
+        parameters.putAll(renderContext.copyParameters());
+        fillAndSaveReport(layout.jasperReport, parameters, renderContext);
+    }
+
+    private void fillAndSaveReport(JasperReport jasperReport, Map<String, Object> parameters,
+                                   ReportRenderContext renderContext) {
+        JasperPrint jasperPrint;
+        try {
+            jasperPrint = fillReportData(jasperReport, parameters, renderContext.getDataSource());
+        } catch (ClassCastException e) {
+            // a chart of a series column which is not numeric fails while the report is filled.
+            throw new SiddhiAppRuntimeException("Failed to generate the report. Provide a numeric series column. ", e);
+        }
+        saveReport(jasperPrint, renderContext.getOutputPath());
+    }
+
+    private CompiledLayout getCompiledLayout() {
+        CompiledLayout layout = compiledLayout;
+        if (layout != null) {
+            return layout;
+        }
+        synchronized (this) {
+            if (compiledLayout == null) {
+                DynamicDataProvider dataProvider = new DynamicDataProvider(reportProperties, columnSchema);
+                DynamicReportBuilder reportBuilder = new DynamicReportBuilder();
+                columnSchema.addFields(reportBuilder);
+                reportBuilder.setTemplateFile(reportProperties.get(ReportConstants.TEMPLATE));
+                Map<String, Object> parameters = setParameters(reportProperties);
+                addChartTo(reportProperties, reportBuilder, dataProvider, parameters);
+                JasperReport jasperReport = compileReport(reportBuilder.build(), getLayout(reportProperties),
+                        parameters);
+                compiledLayout = new CompiledLayout(jasperReport, parameters, isRewindRequired(jasperReport));
+            }
+            return compiledLayout;
+        }
+    }
+
+    /**
+     * This method checks whether a report may read its data more than once, in which case it is filled with a data
+     * source which can be rewound. The data of the report can only be read again by the subreports, the crosstabs
+     * and the datasets of the report, e.g. when $P{REPORT_DATA_SOURCE} is passed to a subreport.
+     *
+     * @param report the report
+     * @return true if the report has subreports, crosstabs or datasets
+     */
+    static boolean isRewindRequired(JRReport report) {
+        JRDataset[] datasets = report.getDatasets();
+        if (datasets != null && datasets.length > 0) {
+            return true;
+        }
+        for (JRBand band : report.getAllBands()) {
+            if (band != null && hasNestedReport(band.getChildren())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasNestedReport(List<JRChild> children) {
+        for (JRChild child : children) {
+            if (child instanceof JRSubreport || child instanceof JRCrosstab) {
+                return true;
+            }
+            // the frames and the element groups hold elements of their own.
+            if (child instanceof JRElementGroup && hasNestedReport(((JRElementGroup) child).getChildren())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
@@ -123,4 +265,20 @@ public class DynamicReportGenerator extends ReportGenerator {
         }
         return parameters;
     }
+
+    /**
+     * A compiled report layout and the parameters generated for it, which are passed to each fill of the layout, and
+     * whether the layout needs a data source which can be rewound.
+     */
+    private static class CompiledLayout {
+        private final JasperReport jasperReport;
+        private final Map<String, Object> parameters;
+        private final boolean rewindRequired;
+
+        CompiledLayout(JasperReport jasperReport, Map<String, Object> parameters, boolean rewindRequired) {
+            this.jasperReport = jasperReport;
+            this.parameters = Collections.unmodifiableMap(new HashMap<>(parameters));
+            this.rewindRequired = rewindRequired;
+        }
+    }
 }
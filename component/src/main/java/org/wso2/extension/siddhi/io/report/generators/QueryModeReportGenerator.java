@@ -33,25 +33,29 @@ import org.wso2.extension.siddhi.io.report.util.DataProvider;
 import org.wso2.extension.siddhi.io.report.util.DynamicLayoutManager;
 import org.wso2.extension.siddhi.io.report.util.QueryModeDataProvider;
 import org.wso2.extension.siddhi.io.report.util.ReportConstants;
+import org.wso2.extension.siddhi.io.report.util.ReportEventBuffer;
+import org.wso2.extension.siddhi.io.report.util.ReportExecutors;
+import org.wso2.extension.siddhi.io.report.util.ReportRenderContext;
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 /**
  * This class provides the implementation of the query mode report generation logic.
  */
 public class QueryModeReportGenerator extends ReportGenerator {
-    private DynamicReportBuilder mainReportBuilder;
-    private List<Map<String, Object>> allData;
     private Map<String, String> reportProperties;
 
     public QueryModeReportGenerator(Map<String, String> reportProperties) {
         super(reportProperties);
-        mainReportBuilder = new DynamicReportBuilder();
-        allData = new ArrayList<>();
         this.reportProperties = reportProperties;
     }
 
@@ -60,49 +64,115 @@ public class QueryModeReportGenerator extends ReportGenerator {
         // do nothing
     }
 
+    @Override
+    public void generateReport(ReportEventBuffer buffer) {
+        // the buffered events only trigger the report, the data is taken from the queries.
+        generateReport();
+    }
+
+    @Override
+    public void generateReport(ReportEventBuffer buffer, String outputPath) {
+        generateReport();
+    }
+
     @Override
     public void generateReport() {
         JsonArray parsedQueries = getParsedQueries(reportProperties.get(ReportConstants.QUERIES));
         QueryModeDataProvider dataProvider = new QueryModeDataProvider(reportProperties.get(ReportConstants
                 .DATASOURCE_NAME));
         Map<String, Object> parameters = new HashMap<>();
+        DynamicReportBuilder mainReportBuilder = new DynamicReportBuilder();
+        List<Map<String, Object>> allData = new ArrayList<>();
 
         mainReportBuilder.setTemplateFile(reportProperties.get(ReportConstants.TEMPLATE));
-        fillReport(parsedQueries, dataProvider, parameters);
+        fillReport(parsedQueries, dataProvider, mainReportBuilder, allData, parameters);
         setParameters(reportProperties, parameters);
+        ReportRenderContext renderContext = new ReportRenderContext(reportProperties.get(ReportConstants
+                .OUTPUT_PATH), null, parameters, new JRBeanCollectionDataSource(allData));
 
         DynamicLayoutManager reportLayout = getLayout(reportProperties);
         DynamicReport report = mainReportBuilder.build();
-        JasperPrint jasperPrint = generateReportPrint(report, reportLayout, new
-                JRBeanCollectionDataSource(allData), parameters);
-        saveReport(jasperPrint, reportProperties.get(ReportConstants.OUTPUT_PATH));
+        JasperPrint jasperPrint = generateReportPrint(report, reportLayout, renderContext.getDataSource(),
+                renderContext.copyParameters());
+        saveReport(jasperPrint, renderContext.getOutputPath());
     }
 
-    private void fillReport(JsonArray parsedQueries, QueryModeDataProvider dataProvider, Map parameters) {
+    private void fillReport(JsonArray parsedQueries, QueryModeDataProvider dataProvider,
+                            DynamicReportBuilder mainReportBuilder, List<Map<String, Object>> allData,
+                            Map parameters) {
+        List<QueryModeDataProvider> queryDataProviders = new ArrayList<>();
+        List<DynamicReportBuilder> reportBuilders = new ArrayList<>();
+        List<Supplier<List<Map<String, Object>>>> queries = new ArrayList<>();
         parsedQueries.forEach(queryElement -> {
-            JsonObject queryObject = queryElement.getAsJsonObject();
+            QueryModeDataProvider queryDataProvider = new QueryModeDataProvider(dataProvider);
             DynamicReportBuilder reportBuilder = new DynamicReportBuilder();
-            dataProvider.setReportBuilder(reportBuilder);
-            String dbQuery = queryObject.get(ReportConstants.QUERY).getAsString();
-            List<Map<String, Object>> data = dataProvider.processData(dbQuery);
+            queryDataProvider.setReportBuilder(reportBuilder);
+            String dbQuery = queryElement.getAsJsonObject().get(ReportConstants.QUERY).getAsString();
+            queryDataProviders.add(queryDataProvider);
+            reportBuilders.add(reportBuilder);
+            queries.add(() -> queryDataProvider.processData(dbQuery));
+        });
+        List<List<Map<String, Object>>> queryResults = executeQueries(queries);
+
+        for (int i = 0; i < parsedQueries.size(); i++) {
+            JsonObject queryObject = parsedQueries.get(i).getAsJsonObject();
+            QueryModeDataProvider queryDataProvider = queryDataProviders.get(i);
+            DynamicReportBuilder reportBuilder = reportBuilders.get(i);
+            List<Map<String, Object>> data = queryResults.get(i);
             allData.addAll(data);
 
             String chartType = queryObject.get(ReportConstants.CHART).getAsString();
-            String category = queryObject.get(ReportConstants.CATEGORY) == null ? dataProvider.getCategoryColumn()
-                    .getName() : queryObject.get(ReportConstants.CATEGORY).getAsString();
-            String series = queryObject.get(ReportConstants.SERIES) == null ? dataProvider.getSeriesColumn()
+            String category = queryObject.get(ReportConstants.CATEGORY) == null ? queryDataProvider
+                    .getCategoryColumn().getName() : queryObject.get(ReportConstants.CATEGORY).getAsString();
+            String series = queryObject.get(ReportConstants.SERIES) == null ? queryDataProvider.getSeriesColumn()
                     .getName() : queryObject.get(ReportConstants.SERIES).getAsString();
             String chartTitle = queryObject.get(ReportConstants.CHART_TITLE) == null ? "" : queryObject.get
                     (ReportConstants.CHART_TITLE).getAsString();
 
-            addChartTo(chartType, chartTitle, category, series, reportBuilder, dataProvider);
+            addChartTo(chartType, chartTitle, category, series, reportBuilder, queryDataProvider);
             DynamicReport subreportBuild = reportBuilder.build();
 
             String subreportName = Integer.toString(queryObject.hashCode());
             mainReportBuilder.addConcatenatedReport(subreportBuild, new ClassicLayoutManager(), subreportName,
                     DJConstants.DATA_SOURCE_ORIGIN_PARAMETER, DJConstants.DATA_SOURCE_TYPE_COLLECTION);
             parameters.put(subreportName, data);
-        });
+        }
+    }
+
+    /**
+     * This method executes the queries of the report. With the virtual executor type, each query is executed on its
+     * own virtual thread so that the JDBC round-trips overlap, otherwise the queries are executed one after another.
+     *
+     * @param queries the queries returning the data of each sub report
+     * @return the results of the queries in the given order
+     */
+    private List<List<Map<String, Object>>> executeQueries(List<Supplier<List<Map<String, Object>>>> queries) {
+        List<List<Map<String, Object>>> queryResults = new ArrayList<>(queries.size());
+        if (queries.size() < 2 || !ReportConstants.ExecutorTypes.VIRTUAL.name().equalsIgnoreCase(
+                reportProperties.get(ReportConstants.ASYNC_EXECUTOR))) {
+            queries.forEach(query -> queryResults.add(query.get()));
+            return queryResults;
+        }
+        ExecutorService queryExecutor = ReportExecutors.newExecutor("siddhi-report-query-", queries.size(),
+                ReportConstants.ExecutorTypes.VIRTUAL);
+        try {
+            List<Future<List<Map<String, Object>>>> futures = new ArrayList<>(queries.size());
+            queries.forEach(query -> futures.add(queryExecutor.submit(query::get)));
+            for (Future<List<Map<String, Object>>> future : futures) {
+                queryResults.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SiddhiAppRuntimeException("Interrupted while executing the queries of the report.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new SiddhiAppRuntimeException("Failed to execute the queries of the report.", e.getCause());
+        } finally {
+            queryExecutor.shutdownNow();
+        }
+        return queryResults;
     }
 
     private JsonArray getParsedQueries(String payload) {
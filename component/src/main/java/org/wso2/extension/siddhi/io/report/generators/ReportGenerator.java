@@ -27,35 +27,52 @@ import net.sf.jasperreports.engine.JasperExportManager;
 import net.sf.jasperreports.engine.JasperFillManager;
 import net.sf.jasperreports.engine.JasperPrint;
 import net.sf.jasperreports.engine.JasperReport;
-import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
 import net.sf.jasperreports.engine.design.JasperDesign;
 import net.sf.jasperreports.engine.export.JRCsvExporter;
 import net.sf.jasperreports.engine.export.ooxml.JRXlsxExporter;
+import net.sf.jasperreports.engine.util.JRLoader;
 import net.sf.jasperreports.engine.xml.JRXmlLoader;
 import net.sf.jasperreports.export.SimpleExporterInput;
 import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
 import net.sf.jasperreports.export.SimpleWriterExporterOutput;
+import org.wso2.extension.siddhi.io.report.util.DynamicDataProvider;
 import org.wso2.extension.siddhi.io.report.util.DynamicLayoutManager;
 import org.wso2.extension.siddhi.io.report.util.ReportConstants;
+import org.wso2.extension.siddhi.io.report.util.ReportEventBuffer;
+import org.wso2.extension.siddhi.io.report.util.ReportTemplateCache;
 import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
 
 /**
  * This abstract class provides implementation of methods for the report generation.
  */
 public abstract class ReportGenerator {
     private Map<String, String> reportProperties = Collections.EMPTY_MAP;
+    private Semaphore fillPermits;
 
     public ReportGenerator(Map<String, String> reportProperties) {
         this.reportProperties = reportProperties;
+        String maxConcurrentFills = reportProperties.get(ReportConstants.ASYNC_MAX_CONCURRENT_FILLS);
+        if (maxConcurrentFills != null) {
+            // filling a report is CPU bound, hence it is limited even if the jobs run on many (virtual) threads.
+            fillPermits = new Semaphore(Integer.parseInt(maxConcurrentFills));
+        }
     }
 
     public void saveReport(JasperPrint jasperPrint, String outputPath) {
-        String fileName = reportProperties.get(ReportConstants.OUTPUT_PATH);
+        String fileName = outputPath;
         File destFile = null;
         try {
             switch (reportProperties.get(ReportConstants.OUTPUT_FORMAT).toLowerCase(Locale.ENGLISH)) {
@@ -88,9 +105,10 @@ public abstract class ReportGenerator {
     }
 
     public JasperPrint generateReportPrint(DynamicReport report, DynamicLayoutManager reportLayout,
-                                           JRBeanCollectionDataSource dataSource, Map<String, Object> parameters)
+                                           JRDataSource dataSource, Map<String, Object> parameters)
             throws SiddhiAppRuntimeException {
         JasperPrint jasperPrint;
+        acquireFillPermit();
         try {
             jasperPrint = DynamicJasperHelper.generateJasperPrint(report, reportLayout, dataSource,
                     parameters);
@@ -98,22 +116,64 @@ public abstract class ReportGenerator {
             throw new SiddhiAppRuntimeException("Failed to generate the JasperPrint " + report.getReportName() + ".", e);
         } catch (ClassCastException e) {
             throw new SiddhiAppRuntimeException("Failed to generate the report. Provide a numeric series column. ", e);
+        } finally {
+            releaseFillPermit();
         }
         return jasperPrint;
     }
 
+    /**
+     * This method compiles the layout of a dynamic report, so that it can be filled with the data of many reports.
+     * The values of the parameters generated for the layout are added to the given parameters, which must be passed
+     * to each fill of the compiled report.
+     *
+     * @param report       the dynamic report
+     * @param reportLayout the layout manager of the report
+     * @param parameters   the parameters of the report, to which the generated parameters are added
+     * @return the compiled report
+     */
+    public JasperReport compileReport(DynamicReport report, DynamicLayoutManager reportLayout,
+                                      Map<String, Object> parameters) {
+        try {
+            return DynamicJasperHelper.generateJasperReport(report, reportLayout, parameters);
+        } catch (JRException e) {
+            throw new SiddhiAppRuntimeException("Failed to compile the report " + report.getReportName() + ".", e);
+        }
+    }
+
     public JasperPrint fillReportData(JasperReport jasperReport, Map<String, Object> parameters, JRDataSource
             dataSource) {
         JasperPrint jasperPrint;
+        acquireFillPermit();
         try {
             jasperPrint = JasperFillManager.fillReport(jasperReport, parameters, dataSource);
         } catch (JRException e) {
             throw new SiddhiAppRuntimeException("Failed to fill data into report template. " + jasperReport.getName()
                     , e);
+        } finally {
+            releaseFillPermit();
         }
         return jasperPrint;
     }
 
+    private void acquireFillPermit() {
+        if (fillPermits == null) {
+            return;
+        }
+        try {
+            fillPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SiddhiAppRuntimeException("Interrupted while waiting to fill the report.", e);
+        }
+    }
+
+    private void releaseFillPermit() {
+        if (fillPermits != null) {
+            fillPermits.release();
+        }
+    }
+
     public JasperDesign loadTemplate(String template) {
         JasperDesign jasperDesign;
         try {
@@ -124,6 +184,91 @@ public abstract class ReportGenerator {
         return jasperDesign;
     }
 
+    /**
+     * This method reads the content of a template, so that the template is identified by its content. A template
+     * which is not a file is read from the templates compiled into the extension.
+     *
+     * @param template the path of the JRXML or compiled template, or the name of a compiled template of the extension
+     * @return the content of the template
+     */
+    public byte[] readTemplate(String template) {
+        try {
+            Path templateFile = Paths.get(template);
+            if (Files.isRegularFile(templateFile) || !isCompiledTemplate(template)) {
+                return Files.readAllBytes(templateFile);
+            }
+            try (InputStream inputStream = ReportGenerator.class.getClassLoader().getResourceAsStream(template)) {
+                if (inputStream == null) {
+                    throw new SiddhiAppRuntimeException("Failed to load the report template " + template + ". " +
+                            "It is neither a file nor a compiled template of the extension.");
+                }
+                return JRLoader.readBytes(inputStream);
+            }
+        } catch (IOException | JRException | InvalidPathException e) {
+            throw new SiddhiAppRuntimeException("Failed to load the report template " + template + ".", e);
+        }
+    }
+
+    /**
+     * This method checks whether a template is compiled, in which case it is loaded instead of being compiled.
+     *
+     * @param template the path or the name of the template
+     * @return true if the template is a .jasper file
+     */
+    public static boolean isCompiledTemplate(String template) {
+        return template.endsWith(ReportConstants.COMPILED_TEMPLATE_EXTENSION);
+    }
+
+    /**
+     * This method loads and compiles a template. If the template cache directory is given, the compiled template is
+     * loaded from the cache when the template has not changed since it was compiled, and is saved in the cache
+     * otherwise. A template which is already compiled, such as the templates compiled when the extension is built, is
+     * loaded without compiling it.
+     *
+     * @param template the path of the JRXML or compiled template, or the name of a compiled template of the extension
+     * @param jrxml    the content of the template, as read by {@link #readTemplate(String)}
+     * @param key      the key of the content, as computed by {@link ReportTemplateCache#getKey(byte[])}
+     * @return the compiled template
+     */
+    public JasperReport getCompiledTemplate(String template, byte[] jrxml, String key) {
+        if (isCompiledTemplate(template)) {
+            return loadCompiledTemplate(template, jrxml);
+        }
+        String cacheDirectory = reportProperties.get(ReportConstants.TEMPLATE_CACHE_DIRECTORY);
+        ReportTemplateCache templateCache = cacheDirectory == null ? null :
+                new ReportTemplateCache(Paths.get(cacheDirectory));
+        JasperReport jasperReport = templateCache == null ? null : templateCache.get(key);
+        if (jasperReport == null) {
+            // the template is loaded from the content which is hashed, hence the key matches the compiled template.
+            JasperDesign jasperDesign;
+            try {
+                jasperDesign = JRXmlLoader.load(new ByteArrayInputStream(jrxml));
+            } catch (JRException e) {
+                throw new SiddhiAppRuntimeException("Failed to load the report template " + template + ".", e);
+            }
+            jasperReport = compileTemplate(jasperDesign, template);
+            if (templateCache != null) {
+                templateCache.put(key, jasperReport);
+            }
+        }
+        return jasperReport;
+    }
+
+    private JasperReport loadCompiledTemplate(String template, byte[] content) {
+        Object jasperReport;
+        try {
+            jasperReport = JRLoader.loadObject(new ByteArrayInputStream(content));
+        } catch (JRException e) {
+            throw new SiddhiAppRuntimeException("Failed to load the compiled template " + template + ". It may " +
+                    "have been compiled by an incompatible version of JasperReports.", e);
+        }
+        if (!(jasperReport instanceof JasperReport)) {
+            throw new SiddhiAppRuntimeException("Failed to load the compiled template " + template + ". It is not a " +
+                    "compiled report template.");
+        }
+        return (JasperReport) jasperReport;
+    }
+
     public JasperReport compileTemplate(JasperDesign jasperDesign, String templateName) {
         JasperReport jasperReport;
         try {
@@ -144,5 +289,24 @@ public abstract class ReportGenerator {
 
     public abstract void generateReport(Object payload);
 
+    /**
+     * This method generates a report for a batch of events. If the output path has a dynamic value, it is resolved
+     * from the first event of the batch.
+     *
+     * @param buffer the batch of events
+     */
+    public void generateReport(ReportEventBuffer buffer) {
+        generateReport(buffer, DynamicDataProvider.resolveOutputPath(reportProperties, buffer));
+    }
+
+    /**
+     * This method generates a report for a batch of events and saves it in the given output path. It does not
+     * modify the state of the generator, hence it can be called for several batches in parallel.
+     *
+     * @param buffer     the batch of events
+     * @param outputPath the resolved output path of the report
+     */
+    public abstract void generateReport(ReportEventBuffer buffer, String outputPath);
+
     public abstract void generateReport();
 }
@@ -24,40 +24,81 @@ import net.sf.jasperreports.engine.JRParameter;
 import net.sf.jasperreports.engine.JasperPrint;
 import net.sf.jasperreports.engine.JasperReport;
 import net.sf.jasperreports.engine.data.JRMapArrayDataSource;
-import net.sf.jasperreports.engine.design.JasperDesign;
 import org.apache.log4j.Logger;
 import org.wso2.extension.siddhi.io.report.util.DynamicDataProvider;
 import org.wso2.extension.siddhi.io.report.util.ReportConstants;
+import org.wso2.extension.siddhi.io.report.util.ReportEventBuffer;
+import org.wso2.extension.siddhi.io.report.util.ReportRenderContext;
+import org.wso2.extension.siddhi.io.report.util.ReportTemplateCache;
+import org.wso2.extension.siddhi.io.report.util.ReportTemplateRegistry;
 import org.wso2.siddhi.core.exception.SiddhiAppCreationException;
 
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * This class provides implementation for the report generation for an external JRXML template file.
+ * This class provides implementation for the report generation for an external JRXML template file. The template
+ * can be reloaded while reports are rendered, in which case each report is rendered with the version of the template
+ * which was current when its rendering started. The template is compiled when the generator is created, but it is
+ * held in the template registry only while the generator is acquired, hence a generator of a siddhi app which fails
+ * to be created does not keep the template in the registry.
  */
 public class StaticReportGenerator extends ReportGenerator {
     private static final Logger LOGGER = Logger.getLogger(StaticReportGenerator.class);
     private Map<String, String> reportProperties;
-    private Map<String, Object> parameters;
-    private List<Map<String, Object>> data;
-    private JasperReport jasperReport;
-    private Object[] datasetParameters;
+    private volatile CompiledTemplate compiledTemplate;
+    private boolean acquired;
+    private final AtomicLong templateReloads = new AtomicLong();
+    private final AtomicLong failedTemplateReloads = new AtomicLong();
 
     public StaticReportGenerator(Map<String, String> reportProperties) {
         super(reportProperties);
         this.reportProperties = reportProperties;
-        this.parameters = new HashMap<>();
-        initializeReportContent();
+        String template = reportProperties.get(ReportConstants.TEMPLATE);
+        byte[] jrxml = readTemplate(template);
+        String key = ReportTemplateCache.getKey(jrxml);
+        // the template is looked up in the registry, so that it is not compiled again if another sink uses it, but
+        // it is not held until the generator is acquired.
+        JasperReport jasperReport = ReportTemplateRegistry.acquire(key, () -> getCompiledTemplate(template, jrxml,
+                key));
+        ReportTemplateRegistry.release(key);
+        compiledTemplate = new CompiledTemplate(key, jasperReport, getDatasetParameters(jasperReport));
     }
 
-    private void initializeReportContent() {
-        JasperDesign jasperDesign = loadTemplate(reportProperties.get(ReportConstants.TEMPLATE));
-        jasperReport = compileTemplate(jasperDesign, reportProperties.get(ReportConstants.TEMPLATE));
+    /**
+     * This method holds the compiled template of the generator in the template registry, so that the other sinks
+     * using the same template share it. Each acquisition must be released by {@link #release()}.
+     */
+    public synchronized void acquire() {
+        if (acquired) {
+            return;
+        }
+        CompiledTemplate template = compiledTemplate;
+        JasperReport jasperReport = ReportTemplateRegistry.acquire(template.key, () -> template.jasperReport);
+        if (jasperReport != template.jasperReport) {
+            // the template is registered by another sink while this generator was not acquired.
+            compiledTemplate = new CompiledTemplate(template.key, jasperReport, getDatasetParameters(jasperReport));
+        }
+        acquired = true;
+    }
+
+    private CompiledTemplate acquireTemplate(String template, byte[] jrxml, String key) {
+        JasperReport jasperReport = ReportTemplateRegistry.acquire(key, () -> getCompiledTemplate(template, jrxml,
+                key));
+        try {
+            return new CompiledTemplate(key, jasperReport, getDatasetParameters(jasperReport));
+        } catch (RuntimeException e) {
+            ReportTemplateRegistry.release(key);
+            throw e;
+        }
+    }
+
+    private Object[] getDatasetParameters(JasperReport jasperReport) {
         JRParameter[] reportParameters = jasperReport.getParameters();
-        datasetParameters = Arrays.stream(reportParameters)
+        Object[] datasetParameters = Arrays.stream(reportParameters)
                 .filter(parameter ->
                         (parameter.getValueClass().equals(JRDataSource.class)) &&
                                 (!parameter.getName().equals("REPORT_DATA_SOURCE"))).toArray();
@@ -69,14 +110,100 @@ public class StaticReportGenerator extends ReportGenerator {
         if (datasetParameters.length > 1) {
             LOGGER.warn("Too many parameters for dataset. Expected 1, found " + datasetParameters.length);
         }
+        return datasetParameters;
+    }
+
+    /**
+     * This method compiles the template again if its content has changed, and replaces the compiled template once it
+     * is compiled. The reports which are being rendered are completed with the previous version of the template. If
+     * the template fails to compile, the previous version is kept and the failure is counted.
+     *
+     * @return true if the template is replaced, false if it has not changed, failed to compile or the generator is
+     * not acquired
+     */
+    public synchronized boolean reloadTemplate() {
+        if (!acquired) {
+            return false;
+        }
+        String template = reportProperties.get(ReportConstants.TEMPLATE);
+        CompiledTemplate reloadedTemplate;
+        try {
+            byte[] jrxml = readTemplate(template);
+            String key = ReportTemplateCache.getKey(jrxml);
+            if (key.equals(compiledTemplate.key)) {
+                return false;
+            }
+            reloadedTemplate = acquireTemplate(template, jrxml, key);
+        } catch (RuntimeException e) {
+            failedTemplateReloads.incrementAndGet();
+            LOGGER.error("Failed to reload the report template " + template + ". The previous version of the " +
+                    "template is used until it is changed again.", e);
+            return false;
+        }
+        CompiledTemplate previousTemplate = compiledTemplate;
+        compiledTemplate = reloadedTemplate;
+        ReportTemplateRegistry.release(previousTemplate.key);
+        templateReloads.incrementAndGet();
+        LOGGER.info("Reloaded the report template " + template + ".");
+        return true;
+    }
+
+    /**
+     * This method releases the compiled template of the generator, so that it is removed from the template registry
+     * once no other generator uses it. The generator still renders the reports with the template, and it can be
+     * acquired again.
+     */
+    public synchronized void release() {
+        if (acquired) {
+            ReportTemplateRegistry.release(compiledTemplate.key);
+            acquired = false;
+        }
+    }
+
+    public long getTemplateReloadCount() {
+        return templateReloads.get();
+    }
+
+    public long getFailedTemplateReloadCount() {
+        return failedTemplateReloads.get();
     }
 
     @Override
     public void generateReport(Object payload) {
+        CompiledTemplate template = compiledTemplate;
+        DynamicDataProvider dataProvider = new DynamicDataProvider(reportProperties);
+        List<Map<String, Object>> data = getDataFromPayload(dataProvider, payload);
+        String outputPath = dataProvider.resolveOutputPath(data);
+        Map<String, Object> parameters = new HashMap<>();
+        String datasetName = null;
+        if (template.datasetParameters.length > 1) {
+            Map<String, List<Map<String, Object>>> dataWithMultipleDatasets = dataProvider
+                    .getDataWithMultipleDatasets(data);
+            for (Map.Entry<String, List<Map<String, Object>>> entry : dataWithMultipleDatasets.entrySet()) {
+                parameters.put(entry.getKey(), new JRMapArrayDataSource(entry.getValue().toArray()));
+            }
+        } else {
+            datasetName = ((JRParameter) template.datasetParameters[0]).getName();
+            parameters.put(datasetName, new JRMapArrayDataSource(data.toArray()));
+        }
+        renderReport(template.jasperReport, new ReportRenderContext(outputPath, datasetName, parameters,
+                new JREmptyDataSource()));
+    }
+
+    @Override
+    public void generateReport(ReportEventBuffer buffer, String outputPath) {
+        CompiledTemplate template = compiledTemplate;
         DynamicDataProvider dataProvider = new DynamicDataProvider(reportProperties);
-        fillDataToDatasets(dataProvider, payload);
-        JasperPrint jasperPrint = fillReportData(jasperReport, parameters, new JREmptyDataSource());
-        saveReport(jasperPrint, reportProperties.get(ReportConstants.OUTPUT_PATH));
+        Map<String, Object> parameters = new HashMap<>();
+        String datasetName = null;
+        if (template.datasetParameters.length > 1) {
+            parameters.putAll(dataProvider.getDataWithMultipleDatasets(buffer));
+        } else {
+            datasetName = ((JRParameter) template.datasetParameters[0]).getName();
+            parameters.put(datasetName, dataProvider.getData(buffer));
+        }
+        renderReport(template.jasperReport, new ReportRenderContext(outputPath, datasetName, parameters,
+                new JREmptyDataSource()));
     }
 
     @Override
@@ -84,23 +211,28 @@ public class StaticReportGenerator extends ReportGenerator {
         // do nothing
     }
 
-    private void fillDataToDatasets(DynamicDataProvider dataProvider, Object payload) {
-        if (datasetParameters.length > 1) {
-            Map<String, List<Map<String, Object>>> dataWithMultipleDatasets = dataProvider
-                    .getDataWithMultipleDatasets(payload);
-            for (Map.Entry<String, List<Map<String, Object>>> entry : dataWithMultipleDatasets.entrySet()) {
-                data = entry.getValue();
-                JRMapArrayDataSource mapArrayDataSource = new JRMapArrayDataSource(data.toArray());
-                parameters.put(entry.getKey(), mapArrayDataSource);
-            }
-        } else {
-            data = getDataFromPayload(dataProvider, payload);
-            JRMapArrayDataSource mapArrayDataSource = new JRMapArrayDataSource(data.toArray());
-            parameters.put(((JRParameter) datasetParameters[0]).getName(), mapArrayDataSource);
-        }
+    private void renderReport(JasperReport jasperReport, ReportRenderContext renderContext) {
+        JasperPrint jasperPrint = fillReportData(jasperReport, renderContext.copyParameters(),
+                renderContext.getDataSource());
+        saveReport(jasperPrint, renderContext.getOutputPath());
     }
 
     public List<Map<String, Object>> getDataFromPayload(DynamicDataProvider dataProvider, Object payload) {
         return dataProvider.getData(payload);
     }
+
+    /**
+     * A compiled template and its dataset parameters, which are replaced together when the template is reloaded.
+     */
+    private static class CompiledTemplate {
+        private final String key;
+        private final JasperReport jasperReport;
+        private final Object[] datasetParameters;
+
+        CompiledTemplate(String key, JasperReport jasperReport, Object[] datasetParameters) {
+            this.key = key;
+            this.jasperReport = jasperReport;
+            this.datasetParameters = datasetParameters;
+        }
+    }
 }
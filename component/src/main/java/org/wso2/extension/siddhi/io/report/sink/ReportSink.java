@@ -21,8 +21,18 @@ package org.wso2.extension.siddhi.io.report.sink;
 import org.apache.log4j.Logger;
 import org.wso2.extension.siddhi.io.report.generators.DynamicReportGenerator;
 import org.wso2.extension.siddhi.io.report.generators.QueryModeReportGenerator;
+import org.wso2.extension.siddhi.io.report.generators.ReportGenerator;
 import org.wso2.extension.siddhi.io.report.generators.StaticReportGenerator;
+import org.wso2.extension.siddhi.io.report.util.ReportColumnSchema;
 import org.wso2.extension.siddhi.io.report.util.ReportConstants;
+import org.wso2.extension.siddhi.io.report.util.ReportEventBuffer;
+import org.wso2.extension.siddhi.io.report.util.ReportExecutors;
+import org.wso2.extension.siddhi.io.report.util.ReportPartitioner;
+import org.wso2.extension.siddhi.io.report.util.ReportRenderJob;
+import org.wso2.extension.siddhi.io.report.util.ReportRenderPipeline;
+import org.wso2.extension.siddhi.io.report.util.ReportSinkMetrics;
+import org.wso2.extension.siddhi.io.report.util.ReportTemplateCache;
+import org.wso2.extension.siddhi.io.report.util.ReportTemplateWatcher;
 import org.wso2.siddhi.annotation.Example;
 import org.wso2.siddhi.annotation.Extension;
 import org.wso2.siddhi.annotation.Parameter;
@@ -37,19 +47,29 @@ import org.wso2.siddhi.core.util.transport.DynamicOptions;
 import org.wso2.siddhi.core.util.transport.OptionHolder;
 import org.wso2.siddhi.query.api.definition.Attribute;
 import org.wso2.siddhi.query.api.definition.StreamDefinition;
+import org.wso2.siddhi.query.compiler.SiddhiCompiler;
 
 import java.io.File;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -70,7 +90,12 @@ import java.util.stream.Stream;
                 " are applied.\n" +
                 "The information you want to publish in the report can be taken from a stream or an RDBMS " +
                 "datasource\n" +
-                "Further, this extension can generate a report based on a specified JRXML template.",
+                "Further, this extension can generate a report based on a specified JRXML template.\n" +
+                "The events can be mapped with either the 'json' or the 'passThrough' mapper. The 'passThrough' " +
+                "mapper avoids converting each event to JSON and parsing it again in the sink.\n" +
+                "While the sink is connected, its metrics, such as the depth of the render queue and the latency " +
+                "of the render jobs, are published as a JMX MBean named " +
+                "'org.wso2.extension.siddhi.io.report:type=ReportSink' with the siddhi app and the stream of the sink.",
         parameters = {
                 @Parameter(name = "outputpath",
                         description = "The report path to the location to which the data is published.",
@@ -110,11 +135,48 @@ import java.util.stream.Stream;
                 @Parameter(name = "template",
                         description = "This parameter specifies an external JRXML template path to generate " +
                                 "the report. The Report sink passes the required data to the selected template and" +
-                                " generates the report based on it.",
+                                " generates the report based on it. A template which is compiled ahead of time " +
+                                "can be given as the path of its .jasper file, in which case it is loaded without " +
+                                "compiling it. The templates compiled when the extension is built, such as " +
+                                "'fromResultsetData.jasper', can be given by their names.",
                         optional = true,
                         defaultValue = "none",
                         type = {DataType.STRING}
                 ),
+                @Parameter(name = "template.cache",
+                        description = "If this parameter is set to 'true', the external 'template' is compiled " +
+                                "once and kept as a .jasper file in 'template.cache.directory'. The later " +
+                                "deployments load the compiled template instead of compiling it again, unless the " +
+                                "template, JasperReports or Java has changed since it was compiled. " +
+                                "'template.cache.directory' must be given if this is 'true'.",
+                        optional = true,
+                        defaultValue = "false",
+                        type = {DataType.BOOL}
+                ),
+                @Parameter(name = "template.cache.directory",
+                        description = "The directory in which the compiled templates are kept if 'template.cache' " +
+                                "is 'true'. The compiled templates are deserialized when they are loaded, hence the " +
+                                "directory must be owned by the user of the server and must not be writable by the " +
+                                "other users, and a shared directory such as the temporary directory should not be " +
+                                "used. The directory is created with access for the user of the server only when " +
+                                "the first template is cached.",
+                        optional = true,
+                        defaultValue = "none",
+                        type = {DataType.STRING}
+                ),
+                @Parameter(name = "template.reload",
+                        description = "If this parameter is set to 'true', the external 'template' is watched " +
+                                "while the Siddhi app is running, and is compiled again in the background when it " +
+                                "is changed. The reports which are being rendered are completed with the previous " +
+                                "version of the template. If the changed template fails to compile, the failure " +
+                                "is logged and counted, and the previous version is used until the template is " +
+                                "changed again. The reloads and the failed reloads are published as the " +
+                                "'TemplateReloadCount' and 'FailedTemplateReloadCount' attributes of the JMX MBean " +
+                                "of the sink.",
+                        optional = true,
+                        defaultValue = "false",
+                        type = {DataType.BOOL}
+                ),
                 @Parameter(name = "dataset",
                         description = "The dataset for the external template. The value for this parameter can be a " +
                                 "static stream attribute name or a dynamic value specified via '{}'.\n" +
@@ -208,6 +270,126 @@ import java.util.stream.Stream;
                         defaultValue = "none",
                         type = {DataType.STRING}
                 ),
+                @Parameter(name = "async",
+                        description = "If this parameter is set to 'true', reports are rendered asynchronously. The " +
+                                "events are queued as render jobs and the publishing thread returns as soon as the " +
+                                "job is queued, instead of waiting until the report is generated and saved. As a " +
+                                "report overwrites the previous report of the same output path, a queued job which " +
+                                "is not started yet is discarded when a new job for the same output path is queued. " +
+                                "With the 'coalesce' overload policy, its events are rendered with the new job.",
+                        optional = true,
+                        defaultValue = "false",
+                        type = {DataType.BOOL}
+                ),
+                @Parameter(name = "async.queue.size",
+                        description = "The maximum number of render jobs that can wait in the queue when 'async' is" +
+                                " enabled. When the queue is full, publishing waits until a job is rendered.",
+                        optional = true,
+                        defaultValue = "1024",
+                        type = {DataType.INT}
+                ),
+                @Parameter(name = "async.workers",
+                        description = "The number of worker threads rendering the queued reports when 'async' is " +
+                                "enabled. This is ignored by the 'virtual' executor.",
+                        optional = true,
+                        defaultValue = "1",
+                        type = {DataType.INT}
+                ),
+                @Parameter(name = "async.overload.policy",
+                        description = "The policy applied when the render queue is full and 'async' is enabled. The " +
+                                "possible values are as follows:\n" +
+                                "- 'block': Publishing waits until a queued job is rendered.\n" +
+                                "- 'drop-oldest': The oldest queued render job is dropped.\n" +
+                                "- 'drop-newest': The new render job is dropped.\n" +
+                                "- 'coalesce': The events of the new render job are merged into the last queued " +
+                                "job, so that they are rendered with the next report.\n" +
+                                "The dropped and coalesced jobs are counted by the 'DroppedJobCount' and " +
+                                "'CoalescedJobCount' attributes of the JMX MBean of the sink.",
+                        optional = true,
+                        defaultValue = "block",
+                        type = {DataType.STRING}
+                ),
+                @Parameter(name = "async.executor",
+                        description = "The type of the threads rendering the reports when 'async' is enabled. The " +
+                                "possible values are as follows:\n" +
+                                "- 'fixed': The reports are rendered by a fixed pool of 'async.workers' threads.\n" +
+                                "- 'virtual': Each render job runs on a virtual thread of its own, so that writing " +
+                                "the report files and the JDBC queries of the 'query' mode do not hold a platform " +
+                                "thread. The number of reports rendered at the same time is only limited by " +
+                                "'async.max.concurrent.fills', and up to 'async.queue.size' jobs can be rendering " +
+                                "in addition to the queued ones. The queries of a report are also executed in " +
+                                "parallel. This requires JDK 21 or later, and the 'fixed' executor is used on older " +
+                                "JVMs.",
+                        optional = true,
+                        defaultValue = "fixed",
+                        type = {DataType.STRING}
+                ),
+                @Parameter(name = "async.max.concurrent.fills",
+                        description = "The maximum number of reports filled at the same time when 'async' is " +
+                                "enabled. Filling a report is CPU intensive, hence this limits the fills even if " +
+                                "there are more worker threads, such as with the 'virtual' executor.",
+                        optional = true,
+                        defaultValue = "number of available processors",
+                        type = {DataType.INT}
+                ),
+                @Parameter(name = "report.interval",
+                        description = "If this parameter is specified, the events published to the sink are " +
+                                "collected in memory and a single report is rendered from them once per the given " +
+                                "interval (e.g., '5 min'), instead of rendering a report for every published batch " +
+                                "of events. The collected events are included in the snapshots of the Siddhi app, " +
+                                "hence they are not lost when the app is restored.",
+                        optional = true,
+                        defaultValue = "none",
+                        type = {DataType.STRING}
+                ),
+                @Parameter(name = "report.max.events",
+                        description = "If this parameter is specified, the events published to the sink are " +
+                                "collected in memory and a report is rendered whenever the given number of events " +
+                                "is collected. This can be used along with 'report.interval', in which case a " +
+                                "report is rendered when either of the limits is reached.",
+                        optional = true,
+                        defaultValue = "none",
+                        type = {DataType.INT}
+                ),
+                @Parameter(name = "buffer.spill.threshold",
+                        description = "If 'report.interval' or 'report.max.events' is specified, this parameter " +
+                                "specifies the maximum number of collected events kept in memory. Whenever that " +
+                                "many events are collected, they are moved to a memory mapped file in " +
+                                "'buffer.spill.directory' and read back from the file when the report is rendered. " +
+                                "This allows rendering reports with more events than the memory can hold.",
+                        optional = true,
+                        defaultValue = "none",
+                        type = {DataType.INT}
+                ),
+                @Parameter(name = "buffer.spill.directory",
+                        description = "The directory of the files to which the collected events are moved when " +
+                                "'buffer.spill.threshold' is reached. The disk space of the files is released " +
+                                "once the events are rendered.",
+                        optional = true,
+                        defaultValue = "the temporary directory of the JVM",
+                        type = {DataType.STRING}
+                ),
+                @Parameter(name = "shutdown.timeout",
+                        description = "The maximum time the sink waits for the pending reports to be rendered when " +
+                                "it is disconnected, such as when the Siddhi app is shut down. This covers the " +
+                                "render of the events collected for 'report.interval' or 'report.max.events' and " +
+                                "the reports queued when 'async' is enabled. The reports which are not rendered " +
+                                "within this time are dropped, and the number of lost events is logged.",
+                        optional = true,
+                        defaultValue = "30 sec",
+                        type = {DataType.STRING}
+                ),
+                @Parameter(name = "partition.parallelism",
+                        description = "If the 'outputpath' has a dynamic value (e.g., '/abc/{symbol}.pdf'), the " +
+                                "events are partitioned by the value of that attribute and a separate report is " +
+                                "rendered for each partition. This parameter specifies the maximum number of " +
+                                "partitioned reports rendered in parallel. When 'async' is enabled, the reports of " +
+                                "the partitions are queued as separate render jobs and rendered by the " +
+                                "'async.workers' instead.",
+                        optional = true,
+                        defaultValue = "number of available processors",
+                        type = {DataType.INT}
+                ),
         },
         examples = {
                 @Example(
@@ -221,9 +403,10 @@ import java.util.stream.Stream;
                         syntax = "@sink(type='report',outputpath='/abc/{symbol}.pdf',@map(type='json'))" +
                                 "define stream BarStream(symbol string, price float, volume long);",
                         description = "In the above query, the sink gets processed data from the stream named " +
-                                "'BarStream'and publishes that data as a report in PDF format. The name of the report" +
-                                " is the same as the value for the 'symbol' attribute in the first event. The query" +
-                                " does not specify a chart type. Therefore, the report includes a table."
+                                "'BarStream'and publishes that data as reports in PDF format. A separate report is " +
+                                "generated for each value of the 'symbol' attribute, named after that value, and " +
+                                "the reports are rendered in parallel. The query does not specify a chart type. " +
+                                "Therefore, the reports include a table."
                 ),
                 @Example(
                         syntax = "@sink(type='report',outputpath='/abc/example.pdf',description='This is a sample " +
@@ -272,6 +455,64 @@ import java.util.stream.Stream;
                                 "'SAMPLE_DATASOURCE'. The first RDBMS query generates a table, and the second " +
                                 "RDBMS query generates a line chart. The report is saved in the '/abc/example.pdf'" +
                                 " output path."
+                ),
+                @Example(
+                        syntax = "@sink(type='report',outputpath='/abc/example.pdf',async='true'," +
+                                "async.queue.size='100',async.workers='2',@map(type='json'))" +
+                                "define stream BarStream(symbol string, price float, volume long);",
+                        description = "In the above query, the sink queues the events received from the stream " +
+                                "named 'BarStream' and renders them as PDF reports using two worker threads, so " +
+                                "that publishing does not wait for the reports to be generated. At most 100 render " +
+                                "jobs are kept in the queue."
+                ),
+                @Example(
+                        syntax = "@sink(type='report',outputpath='/abc/example.pdf',async='true'," +
+                                "async.queue.size='10',async.overload.policy='coalesce',@map(type='json'))" +
+                                "define stream BarStream(symbol string, price float, volume long);",
+                        description = "In the above query, the sink renders the events received from the stream " +
+                                "named 'BarStream' asynchronously. When rendering falls behind and 10 render jobs " +
+                                "are already queued, the new events are merged into the last queued job instead of " +
+                                "blocking the stream."
+                ),
+                @Example(
+                        syntax = "@sink(type='report',outputpath='/abc/example.pdf',async='true'," +
+                                "async.executor='virtual',async.max.concurrent.fills='4'," +
+                                "@map(type='json'))" +
+                                "define stream BarStream(symbol string, price float, volume long);",
+                        description = "In the above query, the sink renders each report of the events received " +
+                                "from the stream named 'BarStream' on a virtual thread of its own, while at most " +
+                                "four reports are filled at the same time."
+                ),
+                @Example(
+                        syntax = "@sink(type='report',outputpath='/abc/example.pdf',@map(type='passThrough'))" +
+                                "define stream BarStream(symbol string, price float, volume long);",
+                        description = "In the above query, the sink generates a PDF report from the events of the " +
+                                "stream named 'BarStream', reading the attribute values of the events directly " +
+                                "instead of mapping them to JSON."
+                ),
+                @Example(
+                        syntax = "@sink(type='report',outputpath='/abc/example.pdf',report.interval='5 min'," +
+                                "@map(type='json'))" +
+                                "define stream BarStream(symbol string, price float, volume long);",
+                        description = "In the above query, the sink collects the events received from the stream " +
+                                "named 'BarStream' and renders all the events received within each five minutes " +
+                                "as a single PDF report saved in the '/abc/example.pdf' output path."
+                ),
+                @Example(
+                        syntax = "@sink(type='report',outputpath='/abc/example.pdf',report.max.events='50000'," +
+                                "@map(type='json'))" +
+                                "define stream BarStream(symbol string, price float, volume long);",
+                        description = "In the above query, the sink collects the events received from the stream " +
+                                "named 'BarStream' and renders a PDF report for every 50000 events."
+                ),
+                @Example(
+                        syntax = "@sink(type='report',outputpath='/abc/example.pdf',report.interval='1 day'," +
+                                "buffer.spill.threshold='100000',buffer.spill.directory='/tmp/reports'," +
+                                "@map(type='json'))" +
+                                "define stream BarStream(symbol string, price float, volume long);",
+                        description = "In the above query, the sink renders the events received within each day as " +
+                                "a single PDF report. Whenever 100000 events are collected in memory, they are " +
+                                "moved to a file in the '/tmp/reports' directory until the report is rendered."
                 )
         }
 )
@@ -280,25 +521,42 @@ public class ReportSink extends Sink {
     private static final Logger log = Logger.getLogger(ReportSink.class);
     private OptionHolder optionHolder;
     private StreamDefinition streamDefinition;
+    private Attribute.Type[] attributeTypes;
     private SiddhiAppContext siddhiAppContext;
     private Map<String, String> reportProperties = new HashMap<>();
     private StaticReportGenerator staticReportGenerator;
     private DynamicReportGenerator dynamicReportGenerator;
     private QueryModeReportGenerator queryModeReportGenerator;
+    private ReportRenderPipeline renderPipeline;
+    private ReportEventBuffer eventBuffer;
+    private ScheduledExecutorService flushScheduler;
+    private long reportInterval;
+    private long shutdownTimeout;
+    private int reportMaxEvents;
+    private int bufferSpillThreshold;
+    private Path bufferSpillDirectory;
+    private ReportConstants.OverloadPolicies overloadPolicy;
+    private ReportConstants.ExecutorTypes executorType;
+    private ReportPartitioner reportPartitioner;
+    private ReportTemplateWatcher templateWatcher;
+    private ReportSinkMetrics sinkMetrics;
 
     @Override
     protected void init(StreamDefinition streamDefinition, OptionHolder optionHolder, ConfigReader configReader,
                         SiddhiAppContext siddhiAppContext) {
         this.optionHolder = optionHolder;
         this.streamDefinition = streamDefinition;
+        this.attributeTypes = streamDefinition.getAttributeList().stream().map(Attribute::getType)
+                .toArray(Attribute.Type[]::new);
         this.siddhiAppContext = siddhiAppContext;
         validateAndGetParameters();
         validateInitialReportSettings();
+        initializeRenderPipeline();
     }
 
     @Override
     public Class[] getSupportedInputEventClasses() {
-        return new Class[]{String.class, Event.class};
+        return new Class[]{String.class, Event.class, Event[].class};
     }
 
     @Override
@@ -308,18 +566,130 @@ public class ReportSink extends Sink {
 
     @Override
     public void publish(Object payload, DynamicOptions dynamicOptions) throws ConnectionUnavailableException {
-        if (reportProperties.get(ReportConstants.MODE).equalsIgnoreCase(ReportConstants.DEFAULT_MODE)) {
-            if (!reportProperties.get(ReportConstants.TEMPLATE).equals(ReportConstants.DEFAULT_TEMPLATE)) {
-                ignoreOtherParameters(reportProperties);
-                staticReportGenerator.generateReport(payload);
-            } else {
-                dynamicReportGenerator.generateReport(payload);
+        if (eventBuffer != null) {
+            for (ReportEventBuffer batch : eventBuffer.add(payload)) {
+                submitReport(batch);
             }
+        } else if (isStreamingPayload(payload)) {
+            submitPayload((String) payload);
+        } else if (reportProperties.get(ReportConstants.MODE).equalsIgnoreCase(ReportConstants.DEFAULT_MODE)) {
+            // the events are rendered with the columns of the stream. The events of the passThrough mapper are taken
+            // as they are, without converting them to JSON.
+            submitReport(ReportEventBuffer.fromPayload(streamDefinition.getAttributeNameArray(), attributeTypes,
+                    payload));
+        } else {
+            triggerQueryReport();
+        }
+    }
+
+    /**
+     * A JSON payload rendered as a report of its own is handed to the dynamic generator as it is, which decodes the
+     * events while the report is filled. The payloads which are partitioned, or merged with the other queued
+     * payloads by the coalesce overload policy, are decoded into an event buffer instead.
+     */
+    private boolean isStreamingPayload(Object payload) {
+        return payload instanceof String && dynamicReportGenerator != null && reportPartitioner == null &&
+                (renderPipeline == null || overloadPolicy != ReportConstants.OverloadPolicies.COALESCE);
+    }
+
+    private void submitPayload(String payload) {
+        if (renderPipeline == null) {
+            dynamicReportGenerator.generateReport(payload);
+        } else {
+            renderPipeline.submit(payload, reportProperties.get(ReportConstants.OUTPUT_PATH));
+        }
+    }
+
+    private void triggerQueryReport() {
+        if (renderPipeline != null) {
+            // the payload is not used in the query mode, hence only the trigger is queued.
+            renderPipeline.submit(null, reportProperties.get(ReportConstants.OUTPUT_PATH));
         } else {
             queryModeReportGenerator.generateReport();
         }
     }
 
+    private void submitReport(ReportEventBuffer batch) {
+        if (renderPipeline == null) {
+            generateReport(batch);
+        } else if (reportPartitioner != null) {
+            // each report is queued separately, so that it replaces a pending render of the same file.
+            reportPartitioner.partition(batch).forEach((outputPath, partition) ->
+                    renderPipeline.submit(partition, outputPath));
+        } else {
+            renderPipeline.submit(batch, reportProperties.get(ReportConstants.OUTPUT_PATH));
+        }
+    }
+
+    private void renderJob(ReportRenderJob job) {
+        Object payload = job.getPayload();
+        if (payload instanceof ReportEventBuffer && reportPartitioner != null) {
+            getReportGenerator().generateReport((ReportEventBuffer) payload, job.getOutputPath());
+        } else if (payload instanceof ReportEventBuffer) {
+            generateReport((ReportEventBuffer) payload);
+        } else if (payload instanceof String) {
+            dynamicReportGenerator.generateReport(payload);
+        } else {
+            queryModeReportGenerator.generateReport();
+        }
+    }
+
+    private void flushBuffer() {
+        try {
+            ReportEventBuffer batch = eventBuffer.drain();
+            if (batch != null) {
+                submitReport(batch);
+            }
+        } catch (RuntimeException e) {
+            // the exception is not thrown as it would cancel the scheduled renders of the upcoming intervals.
+            log.error("In 'report' sink of siddhi app " + siddhiAppContext.getName() + " failed to render the " +
+                    "buffered events.", e);
+        }
+    }
+
+    private void generateReport(ReportEventBuffer batch) {
+        if (!reportProperties.get(ReportConstants.MODE).equalsIgnoreCase(ReportConstants.DEFAULT_MODE)) {
+            queryModeReportGenerator.generateReport(batch);
+            return;
+        }
+        ReportGenerator reportGenerator = getReportGenerator();
+        if (reportPartitioner != null) {
+            reportPartitioner.render(batch, reportGenerator::generateReport);
+        } else {
+            reportGenerator.generateReport(batch);
+        }
+    }
+
+    private ReportGenerator getReportGenerator() {
+        if (!reportProperties.get(ReportConstants.TEMPLATE).equals(ReportConstants.DEFAULT_TEMPLATE)) {
+            ignoreOtherParameters(reportProperties);
+            return staticReportGenerator;
+        }
+        return dynamicReportGenerator;
+    }
+
+    private void initializeRenderPipeline() {
+        if (Boolean.parseBoolean(reportProperties.get(ReportConstants.ASYNC))) {
+            int queueSize = Integer.parseInt(reportProperties.get(ReportConstants.ASYNC_QUEUE_SIZE));
+            int workers = Integer.parseInt(reportProperties.get(ReportConstants.ASYNC_WORKERS));
+            renderPipeline = new ReportRenderPipeline(siddhiAppContext.getName() + "-" + streamDefinition.getId(),
+                    queueSize, workers, executorType, overloadPolicy, this::renderJob);
+        }
+        sinkMetrics = new ReportSinkMetrics(siddhiAppContext.getName(), streamDefinition.getId(), renderPipeline,
+                staticReportGenerator);
+        if (reportInterval > 0 || reportMaxEvents > 0) {
+            eventBuffer = new ReportEventBuffer(streamDefinition.getAttributeNameArray(), attributeTypes,
+                    reportMaxEvents, bufferSpillThreshold, bufferSpillDirectory);
+        }
+        String dynamicReportName = reportProperties.get(ReportConstants.REPORT_DYNAMIC_NAME_VALUE);
+        if (dynamicReportName != null &&
+                reportProperties.get(ReportConstants.MODE).equalsIgnoreCase(ReportConstants.DEFAULT_MODE)) {
+            int parallelism = Integer.parseInt(reportProperties.get(ReportConstants.PARTITION_PARALLELISM));
+            reportPartitioner = new ReportPartitioner(dynamicReportName.substring(1, dynamicReportName.length() - 1),
+                    reportProperties.get(ReportConstants.OUTPUT_PATH), parallelism);
+        }
+    }
+
     private void ignoreOtherParameters(Map<String, String> reportProperties) {
         String[] ignoringParameters = {ReportConstants.HEADER, ReportConstants.FOOTER, ReportConstants.SERIES,
                 ReportConstants.CATEGORY, ReportConstants.CHART, ReportConstants.DESCRIPTION, ReportConstants.SUBTITLE,
@@ -333,14 +703,18 @@ public class ReportSink extends Sink {
     }
 
     private void validateInitialReportSettings() {
+        // the values resolved for a render are kept in its render context, hence the generators only read the
+        // report properties and can render in parallel.
+        Map<String, String> generatorProperties = Collections.unmodifiableMap(reportProperties);
         if (reportProperties.get(ReportConstants.MODE).equalsIgnoreCase(ReportConstants.DEFAULT_MODE)) {
             if (!reportProperties.get(ReportConstants.TEMPLATE).equalsIgnoreCase(ReportConstants.DEFAULT_TEMPLATE)) {
-                staticReportGenerator = new StaticReportGenerator(reportProperties);
+                staticReportGenerator = new StaticReportGenerator(generatorProperties);
             } else {
-                dynamicReportGenerator = new DynamicReportGenerator(reportProperties);
+                dynamicReportGenerator = new DynamicReportGenerator(generatorProperties,
+                        ReportColumnSchema.fromAttributes(streamDefinition.getAttributeList()));
             }
         } else {
-            queryModeReportGenerator = new QueryModeReportGenerator(reportProperties);
+            queryModeReportGenerator = new QueryModeReportGenerator(generatorProperties);
         }
     }
 
@@ -349,6 +723,24 @@ public class ReportSink extends Sink {
                 .DEFAULT_TEMPLATE);
         validatePath(template, ReportConstants.TEMPLATE);
 
+        String templateCache = optionHolder.validateAndGetStaticValue(ReportConstants.TEMPLATE_CACHE,
+                ReportConstants.DEFAULT_TEMPLATE_CACHE);
+        validateBoolean(ReportConstants.TEMPLATE_CACHE, templateCache);
+        if (Boolean.parseBoolean(templateCache) && !template.equals(ReportConstants.DEFAULT_TEMPLATE) &&
+                !ReportGenerator.isCompiledTemplate(template)) {
+            if (!optionHolder.isOptionExists(ReportConstants.TEMPLATE_CACHE_DIRECTORY)) {
+                throw new SiddhiAppCreationException("In 'report' sink of siddhi app " + siddhiAppContext.getName() +
+                        " " + ReportConstants.TEMPLATE_CACHE_DIRECTORY + " should be given as " +
+                        ReportConstants.TEMPLATE_CACHE + " is enabled.");
+            }
+            validateTemplateCacheDirectory(optionHolder.validateAndGetStaticValue(
+                    ReportConstants.TEMPLATE_CACHE_DIRECTORY));
+        }
+
+        String templateReload = optionHolder.validateAndGetStaticValue(ReportConstants.TEMPLATE_RELOAD,
+                ReportConstants.DEFAULT_TEMPLATE_RELOAD);
+        validateBoolean(ReportConstants.TEMPLATE_RELOAD, templateReload);
+
         String header = optionHolder.validateAndGetStaticValue(ReportConstants.HEADER, ReportConstants.EMPTY_STRING);
         validatePath(header, ReportConstants.HEADER);
 
@@ -408,6 +800,157 @@ public class ReportSink extends Sink {
         String queries = optionHolder.validateAndGetStaticValue(ReportConstants.QUERIES,
                 ReportConstants.EMPTY_STRING);
         validateQueryParameter(queryMode, queries, ReportConstants.QUERIES);
+
+        String async = optionHolder.validateAndGetStaticValue(ReportConstants.ASYNC, ReportConstants.DEFAULT_ASYNC);
+        validateBoolean(ReportConstants.ASYNC, async);
+
+        String asyncQueueSize = optionHolder.validateAndGetStaticValue(ReportConstants.ASYNC_QUEUE_SIZE,
+                ReportConstants.DEFAULT_ASYNC_QUEUE_SIZE);
+        validatePositiveInteger(ReportConstants.ASYNC_QUEUE_SIZE, asyncQueueSize);
+
+        String asyncWorkers = optionHolder.validateAndGetStaticValue(ReportConstants.ASYNC_WORKERS,
+                ReportConstants.DEFAULT_ASYNC_WORKERS);
+        validatePositiveInteger(ReportConstants.ASYNC_WORKERS, asyncWorkers);
+
+        String asyncOverloadPolicy = optionHolder.validateAndGetStaticValue(ReportConstants.ASYNC_OVERLOAD_POLICY,
+                ReportConstants.DEFAULT_ASYNC_OVERLOAD_POLICY);
+        validateOverloadPolicy(asyncOverloadPolicy);
+
+        String asyncExecutor = optionHolder.validateAndGetStaticValue(ReportConstants.ASYNC_EXECUTOR,
+                ReportConstants.DEFAULT_ASYNC_EXECUTOR);
+        validateExecutorType(asyncExecutor);
+
+        if (Boolean.parseBoolean(async)) {
+            String maxConcurrentFills = optionHolder.validateAndGetStaticValue(ReportConstants
+                    .ASYNC_MAX_CONCURRENT_FILLS, Integer.toString(Runtime.getRuntime().availableProcessors()));
+            validatePositiveInteger(ReportConstants.ASYNC_MAX_CONCURRENT_FILLS, maxConcurrentFills);
+        }
+
+        String interval = optionHolder.validateAndGetStaticValue(ReportConstants.REPORT_INTERVAL,
+                ReportConstants.EMPTY_STRING);
+        if (!interval.isEmpty()) {
+            reportInterval = validateInterval(ReportConstants.REPORT_INTERVAL, interval);
+        }
+
+        String shutdownTimeoutValue = optionHolder.validateAndGetStaticValue(ReportConstants.SHUTDOWN_TIMEOUT,
+                ReportConstants.DEFAULT_SHUTDOWN_TIMEOUT);
+        shutdownTimeout = validateInterval(ReportConstants.SHUTDOWN_TIMEOUT, shutdownTimeoutValue);
+
+        if (optionHolder.isOptionExists(ReportConstants.REPORT_MAX_EVENTS)) {
+            String maxEvents = optionHolder.validateAndGetStaticValue(ReportConstants.REPORT_MAX_EVENTS);
+            validatePositiveInteger(ReportConstants.REPORT_MAX_EVENTS, maxEvents);
+            reportMaxEvents = Integer.parseInt(reportProperties.get(ReportConstants.REPORT_MAX_EVENTS));
+        }
+
+        if (optionHolder.isOptionExists(ReportConstants.BUFFER_SPILL_THRESHOLD)) {
+            String spillThreshold = optionHolder.validateAndGetStaticValue(ReportConstants.BUFFER_SPILL_THRESHOLD);
+            validatePositiveInteger(ReportConstants.BUFFER_SPILL_THRESHOLD, spillThreshold);
+            bufferSpillThreshold = Integer.parseInt(reportProperties.get(ReportConstants.BUFFER_SPILL_THRESHOLD));
+            String spillDirectory = optionHolder.validateAndGetStaticValue(ReportConstants.BUFFER_SPILL_DIRECTORY,
+                    ReportConstants.DEFAULT_BUFFER_SPILL_DIRECTORY);
+            bufferSpillDirectory = validateSpillDirectory(spillDirectory);
+        }
+
+        String partitionParallelism = optionHolder.validateAndGetStaticValue(ReportConstants.PARTITION_PARALLELISM,
+                Integer.toString(Runtime.getRuntime().availableProcessors()));
+        validatePositiveInteger(ReportConstants.PARTITION_PARALLELISM, partitionParallelism);
+    }
+
+    private long validateInterval(String property, String interval) {
+        long intervalMillis;
+        try {
+            intervalMillis = SiddhiCompiler.parseTimeConstantDefinition(interval).value();
+        } catch (RuntimeException e) {
+            throw new SiddhiAppCreationException("In 'report' sink of siddhi app " + siddhiAppContext.getName() +
+                    " '" + interval + "' is invalid for " + property + ". Should be a time interval such as " +
+                    "'5 min'.", e);
+        }
+        if (intervalMillis <= 0) {
+            throw new SiddhiAppCreationException("In 'report' sink of siddhi app " + siddhiAppContext.getName() +
+                    " '" + interval + "' is invalid for " + property + ". Should be a positive time interval.");
+        }
+        reportProperties.put(property, interval);
+        return intervalMillis;
+    }
+
+    private void validateOverloadPolicy(String policy) {
+        String policyName = policy.toUpperCase(Locale.ENGLISH).replace('-', '_');
+        List<String> validOverloadPolicies = Stream.of(ReportConstants.OverloadPolicies.values())
+                .map(ReportConstants.OverloadPolicies::name).collect(Collectors.toList());
+        if (!validOverloadPolicies.contains(policyName)) {
+            throw new SiddhiAppCreationException("In 'report' sink of siddhi app " + siddhiAppContext.getName() + " " +
+                    policy + " is not a valid overload policy. Only block, drop-oldest, drop-newest and coalesce " +
+                    "are supported.");
+        }
+        overloadPolicy = ReportConstants.OverloadPolicies.valueOf(policyName);
+        reportProperties.put(ReportConstants.ASYNC_OVERLOAD_POLICY, policy);
+    }
+
+    private void validateExecutorType(String executor) {
+        List<String> validExecutorTypes = Stream.of(ReportConstants.ExecutorTypes.values())
+                .map(ReportConstants.ExecutorTypes::name).collect(Collectors.toList());
+        if (!validExecutorTypes.contains(executor.toUpperCase(Locale.ENGLISH))) {
+            throw new SiddhiAppCreationException("In 'report' sink of siddhi app " + siddhiAppContext.getName() + " " +
+                    executor + " is not a valid executor type. Only fixed and virtual are supported.");
+        }
+        executorType = ReportConstants.ExecutorTypes.valueOf(executor.toUpperCase(Locale.ENGLISH));
+        if (executorType == ReportConstants.ExecutorTypes.VIRTUAL && !ReportExecutors.isVirtualThreadSupported()) {
+            log.warn("In 'report' sink of siddhi app " + siddhiAppContext.getName() + " virtual threads are not " +
+                    "supported by the JVM. Reports are rendered by a fixed pool of threads instead.");
+            executorType = ReportConstants.ExecutorTypes.FIXED;
+        }
+        reportProperties.put(ReportConstants.ASYNC_EXECUTOR, executorType.name().toLowerCase(Locale.ENGLISH));
+    }
+
+    private void validateBoolean(String property, String value) {
+        if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+            throw new SiddhiAppCreationException("In 'report' sink of siddhi app " + siddhiAppContext.getName() +
+                    " '" + value + "' is invalid for " + property + ". Should be either true or false.");
+        }
+        reportProperties.put(property, value);
+    }
+
+    private Path validateSpillDirectory(String spillDirectory) {
+        Path directory = new File(spillDirectory).toPath();
+        if (!Files.isDirectory(directory) || !Files.isWritable(directory)) {
+            throw new SiddhiAppCreationException("In 'report' sink of siddhi app " + siddhiAppContext.getName() +
+                    " " + spillDirectory + " is invalid for " + ReportConstants.BUFFER_SPILL_DIRECTORY + ". Should " +
+                    "be a writable directory.");
+        }
+        reportProperties.put(ReportConstants.BUFFER_SPILL_DIRECTORY, spillDirectory);
+        return directory;
+    }
+
+    private void validateTemplateCacheDirectory(String templateCacheDirectory) {
+        // the directory is created by the template cache when the first template is cached.
+        Path directory = new File(templateCacheDirectory).toPath();
+        if (Files.exists(directory, LinkOption.NOFOLLOW_LINKS) && (!Files.isDirectory(directory,
+                LinkOption.NOFOLLOW_LINKS) || !Files.isWritable(directory))) {
+            throw new SiddhiAppCreationException("In 'report' sink of siddhi app " + siddhiAppContext.getName() +
+                    " " + templateCacheDirectory + " is invalid for " + ReportConstants.TEMPLATE_CACHE_DIRECTORY +
+                    ". Should be a writable directory.");
+        }
+        if (Files.exists(directory, LinkOption.NOFOLLOW_LINKS) && !ReportTemplateCache.isPrivate(directory)) {
+            throw new SiddhiAppCreationException("In 'report' sink of siddhi app " + siddhiAppContext.getName() +
+                    " " + templateCacheDirectory + " is invalid for " + ReportConstants.TEMPLATE_CACHE_DIRECTORY +
+                    ". Should be owned by the user of the server and should not be writable by the other users.");
+        }
+        reportProperties.put(ReportConstants.TEMPLATE_CACHE_DIRECTORY, templateCacheDirectory);
+    }
+
+    private void validatePositiveInteger(String property, String value) {
+        int intValue;
+        try {
+            intValue = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new SiddhiAppCreationException("In 'report' sink of siddhi app " + siddhiAppContext.getName() +
+                    " '" + value + "' is invalid for " + property + ". Should be a positive integer.", e);
+        }
+        if (intValue <= 0) {
+            throw new SiddhiAppCreationException("In 'report' sink of siddhi app " + siddhiAppContext.getName() +
+                    " '" + value + "' is invalid for " + property + ". Should be a positive integer.");
+        }
+        reportProperties.put(property, Integer.toString(intValue));
     }
 
     private void validateOutputFormat(String outputFormat) {
@@ -443,9 +986,9 @@ public class ReportSink extends Sink {
     private void validateMapType() {
         String mapType = streamDefinition.getAnnotations().get(0).getAnnotations().get(0)
                 .getElements().get(0).getValue();
-        if (!mapType.equals("json")) {
+        if (!mapType.equals(ReportConstants.JSON_MAP_TYPE) && !mapType.equals(ReportConstants.PASS_THROUGH_MAP_TYPE)) {
             throw new SiddhiAppCreationException("In 'report' sink of siddhi app " + siddhiAppContext.getName() +
-                    " Invalid map type " + mapType + " Only JSON map type is allowed.");
+                    " Invalid map type " + mapType + " Only JSON and passThrough map types are allowed.");
         }
     }
 
@@ -513,19 +1056,19 @@ public class ReportSink extends Sink {
         Path file = new File(path).toPath();
         FileSystem fileSystem = FileSystems.getDefault();
         if (!path.equals(ReportConstants.DEFAULT_TEMPLATE) && !Files.exists(file)) {
-            if (!path.equals(ReportConstants.DEFAULT_TEMPLATE)) {
+            if (!path.equals(ReportConstants.DEFAULT_TEMPLATE) && !isExtensionTemplate(path, parameter)) {
                 throw new SiddhiAppCreationException("In 'report' sink of siddhi app " + siddhiAppContext.getName() +
                         " " + path + " does not exists. " + parameter + " should be a valid path");
             }
         }
 
         if (parameter.equals(ReportConstants.TEMPLATE)) {
-            PathMatcher matcher = fileSystem.getPathMatcher("glob:**.jrxml");
+            PathMatcher matcher = fileSystem.getPathMatcher("glob:**.{jrxml,jasper}");
             if (!path.isEmpty()) {
                 if (!matcher.matches(file)) {
                     throw new SiddhiAppCreationException("In 'report' sink of siddhi app " + siddhiAppContext.getName()
                             + " " + path + " is invalid." + ReportConstants
-                            .TEMPLATE + " should have a JRXML template");
+                            .TEMPLATE + " should have a JRXML or a compiled template");
                 } else {
                     reportProperties.put(parameter, path);
                 }
@@ -545,6 +1088,11 @@ public class ReportSink extends Sink {
         }
     }
 
+    private boolean isExtensionTemplate(String path, String parameter) {
+        return parameter.equals(ReportConstants.TEMPLATE) && ReportGenerator.isCompiledTemplate(path) &&
+                ReportSink.class.getClassLoader().getResource(path) != null;
+    }
+
     private void validateChart(String chart) {
         List<String> validChartTypes = Stream.of(ReportConstants.ChartTypes.values()).map(ReportConstants
                 .ChartTypes::name).collect(Collectors.toList());
@@ -575,26 +1123,199 @@ public class ReportSink extends Sink {
 
     @Override
     public void connect() throws ConnectionUnavailableException {
-        // do nothing
+        if (staticReportGenerator != null) {
+            // the template is held in the registry only while the sink is connected, hence it is not leaked if the
+            // siddhi app fails to be created after the sink is initialized.
+            staticReportGenerator.acquire();
+        }
+        if (renderPipeline != null) {
+            renderPipeline.start();
+        }
+        // the metrics are registered while the sink is connected, for the same reason as the template.
+        sinkMetrics.register();
+        if (staticReportGenerator != null && templateWatcher == null &&
+                Boolean.parseBoolean(reportProperties.get(ReportConstants.TEMPLATE_RELOAD))) {
+            Path templateFile = new File(reportProperties.get(ReportConstants.TEMPLATE)).toPath();
+            // a compiled template of the extension is not a file, and does not change while the extension is deployed.
+            if (Files.isRegularFile(templateFile)) {
+                templateWatcher = new ReportTemplateWatcher("siddhi-report-template-" + siddhiAppContext.getName() +
+                        "-" + streamDefinition.getId() + "-", templateFile, staticReportGenerator::reloadTemplate);
+                templateWatcher.start();
+            }
+        }
+        if (reportInterval > 0 && flushScheduler == null) {
+            String schedulerName = "siddhi-report-" + siddhiAppContext.getName() + "-" + streamDefinition.getId();
+            flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, schedulerName);
+                thread.setDaemon(true);
+                return thread;
+            });
+            flushScheduler.scheduleAtFixedRate(this::flushBuffer, reportInterval, reportInterval,
+                    TimeUnit.MILLISECONDS);
+        }
     }
 
     @Override
     public void disconnect() {
-        // do nothing
+        // the steps below share a single deadline, so that a restart does not hang on the pending reports.
+        long deadline = System.currentTimeMillis() + shutdownTimeout;
+        stopTemplateWatcher();
+        if (flushScheduler != null) {
+            flushScheduler.shutdown();
+            if (!awaitTermination(flushScheduler, deadline)) {
+                // a render of the last interval which exceeds the shutdown timeout is interrupted.
+                flushScheduler.shutdownNow();
+            }
+            flushScheduler = null;
+        }
+        if (eventBuffer != null) {
+            // render the events of the last incomplete interval or batch.
+            flushRemainingEvents(deadline);
+        }
+        if (renderPipeline != null) {
+            List<ReportRenderJob> unrenderedJobs = renderPipeline.drain(getRemainingTime(deadline));
+            if (!unrenderedJobs.isEmpty()) {
+                logUnrenderedJobs(unrenderedJobs);
+            }
+        }
+        if (staticReportGenerator != null) {
+            staticReportGenerator.release();
+        }
+        sinkMetrics.unregister();
+    }
+
+    private static long getRemainingTime(long deadline) {
+        return Math.max(0, deadline - System.currentTimeMillis());
+    }
+
+    private static boolean awaitTermination(ExecutorService executor, long deadline) {
+        try {
+            return executor.awaitTermination(getRemainingTime(deadline), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * The remaining events are rendered, or handed to the render pipeline, on a thread of their own, so that a render
+     * which exceeds the shutdown timeout does not hold the shutdown. The sink is not included in the snapshots of the
+     * siddhi app once it is disconnected, hence the events which are not rendered by then are dropped.
+     */
+    private void flushRemainingEvents(long deadline) {
+        ReportEventBuffer batch = eventBuffer.drain();
+        if (batch == null) {
+            return;
+        }
+        if (getRemainingTime(deadline) == 0) {
+            log.error("In 'report' sink of siddhi app " + siddhiAppContext.getName() + " dropped " + batch.size() +
+                    " buffered event(s) as the shutdown timeout of " +
+                    reportProperties.get(ReportConstants.SHUTDOWN_TIMEOUT) + " elapsed before they were rendered.");
+            return;
+        }
+        ExecutorService flushExecutor = Executors.newSingleThreadExecutor(ReportExecutors.newThreadFactory(
+                "siddhi-report-flush-" + siddhiAppContext.getName() + "-" + streamDefinition.getId() + "-",
+                ReportConstants.ExecutorTypes.FIXED));
+        Future<?> flush = flushExecutor.submit(() -> submitReport(batch));
+        flushExecutor.shutdown();
+        try {
+            flush.get(getRemainingTime(deadline), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            log.error("In 'report' sink of siddhi app " + siddhiAppContext.getName() + " failed to render the " +
+                    "buffered events.", e.getCause());
+        } catch (TimeoutException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            flush.cancel(true);
+            log.error("In 'report' sink of siddhi app " + siddhiAppContext.getName() + " dropped " + batch.size() +
+                    " buffered event(s) as they were not rendered within the shutdown timeout of " +
+                    reportProperties.get(ReportConstants.SHUTDOWN_TIMEOUT) + ".");
+        }
+    }
+
+    private void logUnrenderedJobs(List<ReportRenderJob> unrenderedJobs) {
+        List<String> outputPaths = unrenderedJobs.stream().map(ReportRenderJob::getOutputPath).distinct()
+                .collect(Collectors.toList());
+        int bufferedJobs = 0;
+        int bufferedEvents = 0;
+        int payloadJobs = 0;
+        for (ReportRenderJob job : unrenderedJobs) {
+            Object payload = job.getPayload();
+            if (payload instanceof ReportEventBuffer) {
+                bufferedJobs++;
+                bufferedEvents += ((ReportEventBuffer) payload).size();
+            } else if (payload != null) {
+                payloadJobs++;
+            }
+        }
+        // the sink is not included in the snapshots of the siddhi app once it is disconnected, hence the events of
+        // the jobs are lost.
+        String message = "In 'report' sink of siddhi app " + siddhiAppContext.getName() + " " +
+                unrenderedJobs.size() + " queued report(s) of " + outputPaths + " were not rendered within the " +
+                "shutdown timeout of " + reportProperties.get(ReportConstants.SHUTDOWN_TIMEOUT) + " and are dropped.";
+        if (bufferedJobs > 0) {
+            message += " Lost " + bufferedEvents + " event(s) of " + bufferedJobs + " buffered report(s).";
+        }
+        if (payloadJobs > 0) {
+            message += " Lost the events of " + payloadJobs + " unbuffered payload(s).";
+        }
+        log.error(message);
     }
 
     @Override
     public void destroy() {
-        // do nothing
+        if (flushScheduler != null) {
+            flushScheduler.shutdownNow();
+        }
+        if (renderPipeline != null) {
+            renderPipeline.shutdown();
+        }
+        if (reportPartitioner != null) {
+            reportPartitioner.shutdown();
+        }
+        stopTemplateWatcher();
+        if (staticReportGenerator != null) {
+            staticReportGenerator.release();
+        }
+        if (sinkMetrics != null) {
+            sinkMetrics.unregister();
+        }
+    }
+
+    private void stopTemplateWatcher() {
+        if (templateWatcher != null) {
+            templateWatcher.stop();
+            templateWatcher = null;
+        }
     }
 
     @Override
     public Map<String, Object> currentState() {
-        return null;
+        if (eventBuffer == null) {
+            return null;
+        }
+        Map<String, Object> state = new HashMap<>();
+        state.put(ReportConstants.STATE_COLUMNS, eventBuffer.getColumnNames());
+        state.put(ReportConstants.STATE_BUFFERED_EVENTS, eventBuffer.snapshot());
+        return state;
     }
 
     @Override
     public void restoreState(Map<String, Object> map) {
-        // no state
+        if (eventBuffer == null || map == null || !map.containsKey(ReportConstants.STATE_BUFFERED_EVENTS)) {
+            return;
+        }
+        String[] columnNames = (String[]) map.get(ReportConstants.STATE_COLUMNS);
+        if (!Arrays.equals(columnNames, eventBuffer.getColumnNames())) {
+            log.warn("In 'report' sink of siddhi app " + siddhiAppContext.getName() + " the buffered events of " +
+                    "the snapshot are ignored as the attributes of the stream " + streamDefinition.getId() +
+                    " have changed.");
+            return;
+        }
+        // the chunks are stored by currentState(), hence they are restored with the type they were snapshot with.
+        @SuppressWarnings("unchecked")
+        List<byte[]> chunks = (List<byte[]>) map.get(ReportConstants.STATE_BUFFERED_EVENTS);
+        eventBuffer.restore(chunks);
     }
 }
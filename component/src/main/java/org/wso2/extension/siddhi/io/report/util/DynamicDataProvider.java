@@ -18,195 +18,237 @@
 
 package org.wso2.extension.siddhi.io.report.util;
 
-import ar.com.fdvs.dj.domain.builders.ColumnBuilder;
 import ar.com.fdvs.dj.domain.builders.DynamicReportBuilder;
 import ar.com.fdvs.dj.domain.entities.columns.AbstractColumn;
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * This class provides the implementation of the data provider for the dynamic reports.
  */
 public class DynamicDataProvider implements DataProvider {
-    private List<AbstractColumn> abstractColumns;
-    private Map<String, AbstractColumn> abstractColumnMap;
+    private static final Pattern DYNAMIC_OPTION_PATTERN = Pattern.compile("(\\{\\w*\\})");
+    private ReportColumnSchema columnSchema;
     private Map<String, String> reportProperties;
-    private JsonParser payloadParser;
 
     public DynamicDataProvider(Map<String, String> reportProperties) {
-        abstractColumns = new ArrayList<>();
-        abstractColumnMap = new HashMap<>();
-        payloadParser = new JsonParser();
+        this(reportProperties, null);
+    }
+
+    /**
+     * Creates a data provider with the given columns. If the columns are not given, they are derived from the types
+     * of the values of the first event in each report.
+     *
+     * @param reportProperties the report properties of the sink
+     * @param columnSchema     the columns of the report, or null
+     */
+    public DynamicDataProvider(Map<String, String> reportProperties, ReportColumnSchema columnSchema) {
         this.reportProperties = reportProperties;
+        this.columnSchema = columnSchema;
     }
 
     public List<Map<String, Object>> getData(Object payload, DynamicReportBuilder reportBuilder) {
-        JsonElement firstEvent = getFirstEvent(payload.toString());
-        List<Map<String, Object>> data = getParsedData(payload.toString());
-        setDynamicReportValue(firstEvent.getAsJsonObject(), ReportConstants.REPORT_DYNAMIC_NAME_VALUE,
-                ReportConstants.OUTPUT_PATH);
-        Map columnMetadata = getColumnMetaData(firstEvent);
-        buildAbstractColumns(columnMetadata, reportBuilder);
+        List<Map<String, Object>> data = getData(payload);
+        if (columnSchema == null) {
+            columnSchema = new ReportColumnSchema(getColumnMetaData(data.get(0)));
+        }
+        columnSchema.addFields(reportBuilder);
         return data;
     }
 
     public List<Map<String, Object>> getData(Object payload) {
-        JsonElement firstEvent = getFirstEvent(payload.toString());
-        List<Map<String, Object>> data = getParsedData(payload.toString());
-        setDynamicReportValue(firstEvent.getAsJsonObject(), ReportConstants.REPORT_DYNAMIC_NAME_VALUE,
-                ReportConstants.OUTPUT_PATH);
-        return data;
+        return ReportJsonDecoder.decodeMaps(payload.toString());
     }
 
-    private List<Map<String, Object>> getParsedData(String payloadString) {
-        JsonElement payloadJson = parsePayload(payloadString);
-        JsonArray events = getEvents(payloadJson);
-        List<Map<String, Object>> data = new ArrayList<>();
-        for (JsonElement eventElement : events) {
-            JsonObject jsonObject = eventElement.getAsJsonObject();
-            Map<String, Object> eventMap = getMapFromJsonObject(jsonObject);
-            data.add(eventMap);
-        }
-        return data;
-    }
-
-    private JsonElement getFirstEvent(String payloadString) {
-        JsonElement payloadJson = parsePayload(payloadString);
-        return getEvents(payloadJson).get(0);
+    /**
+     * This method provides a data source which decodes the events of a JSON payload while the report is filled. The
+     * columns must be given when the data provider is created, since they can not be derived without decoding the
+     * events, and their fields must already be added to the report.
+     *
+     * @param payload the JSON payload
+     * @return the data source of the events
+     */
+    public ReportJsonDataSource getStreamingData(String payload) {
+        return new ReportJsonDataSource(payload, columnSchema);
     }
 
-    private JsonElement parsePayload(String payload) {
-        JsonElement payloadJson = payloadParser.parse(payload);
-        if (!payloadJson.isJsonArray()) {
-            payloadJson = payloadParser.parse("[" + payload + "]");
+    public ReportEventDataSource getData(ReportEventBuffer buffer, DynamicReportBuilder reportBuilder) {
+        if (columnSchema == null) {
+            columnSchema = new ReportColumnSchema(getColumnMetaData(buffer));
         }
-        return payloadJson;
-    }
-
-    private JsonArray getEvents(JsonElement parsedPayload) {
-        return parsedPayload.getAsJsonArray();
+        columnSchema.addFields(reportBuilder);
+        return buffer.getDataSource();
+    }
+
+    public ReportEventDataSource getData(ReportEventBuffer buffer) {
+        return buffer.getDataSource();
+    }
+
+    /**
+     * This method resolves the output path of the report for the events decoded from a JSON payload. If the output
+     * path has a dynamic value, it is taken from the first event. The report properties are not modified.
+     *
+     * @param events the events decoded by {@link #getData(Object)}
+     * @return the output path of the report
+     */
+    public String resolveOutputPath(List<Map<String, Object>> events) {
+        String outputPath = reportProperties.get(ReportConstants.OUTPUT_PATH);
+        String dynamicReportNameParameter = reportProperties.get(ReportConstants.REPORT_DYNAMIC_NAME_VALUE);
+        if (dynamicReportNameParameter != null && !events.isEmpty()) {
+            Object dynamicValue = events.get(0).get(dynamicReportNameParameter.substring(1,
+                    dynamicReportNameParameter.length() - 1));
+            if (dynamicValue != null) {
+                return resolveDynamicValue(outputPath, ReportEventBuffer.formatValue(dynamicValue));
+            }
+        }
+        return outputPath;
+    }
+
+    /**
+     * This method resolves the output path of the report for a JSON payload. If the output path has a dynamic value,
+     * only the first event of the payload is decoded to take the value.
+     *
+     * @param payload the JSON payload
+     * @return the output path of the report
+     */
+    public String resolveOutputPath(String payload) {
+        if (reportProperties.get(ReportConstants.REPORT_DYNAMIC_NAME_VALUE) == null) {
+            return reportProperties.get(ReportConstants.OUTPUT_PATH);
+        }
+        Map<String, Object> firstEvent = ReportJsonDecoder.decodeFirstMap(payload);
+        List<Map<String, Object>> events = firstEvent == null ? Collections.emptyList() :
+                Collections.singletonList(firstEvent);
+        return resolveOutputPath(events);
+    }
+
+    /**
+     * This method resolves the output path of the report for a batch of events. If the output path has a dynamic
+     * value, it is taken from the first event of the batch.
+     *
+     * @param reportProperties the report properties of the sink
+     * @param buffer           the batch of events
+     * @return the output path of the report
+     */
+    public static String resolveOutputPath(Map<String, String> reportProperties, ReportEventBuffer buffer) {
+        String outputPath = reportProperties.get(ReportConstants.OUTPUT_PATH);
+        String dynamicReportNameParameter = reportProperties.get(ReportConstants.REPORT_DYNAMIC_NAME_VALUE);
+        if (dynamicReportNameParameter != null) {
+            int columnIndex = buffer.getColumnIndex(dynamicReportNameParameter.substring(1,
+                    dynamicReportNameParameter.length() - 1));
+            if (columnIndex >= 0 && buffer.getValue(0, columnIndex) != null) {
+                return resolveDynamicValue(outputPath, ReportEventBuffer.formatValue(buffer.getValue(0,
+                        columnIndex)));
+            }
+        }
+        return outputPath;
     }
 
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> getMapFromJsonObject(JsonObject jsonObject) {
-        return new Gson().fromJson(jsonObject.get("event").toString(), LinkedHashMap.class);
+    /**
+     * This method replaces the dynamic option of a property value such as '{symbol}' with the given value.
+     *
+     * @param propertyValue the property value with the dynamic option
+     * @param dynamicValue  the value of the dynamic option
+     * @return the resolved property value
+     */
+    public static String resolveDynamicValue(String propertyValue, String dynamicValue) {
+        return DYNAMIC_OPTION_PATTERN.matcher(propertyValue).replaceAll(Matcher.quoteReplacement(dynamicValue));
     }
 
-    private Map getColumnMetaData(JsonElement element) {
-        JsonObject jsonObject = element.getAsJsonObject();
+    private Map<String, String> getColumnMetaData(Map<String, Object> event) {
         //used linked hashmap inorder to keep the insertion order of the json elements.
-        Map<String, Object> eventMap = getMapFromJsonObject(jsonObject);
-        Map columnMetadata = eventMap.entrySet().stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().getClass().getName(),
-                        (oldValue, newValue) -> newValue, LinkedHashMap::new));
+        Map<String, String> columnMetadata = new LinkedHashMap<>();
+        event.forEach((name, value) -> columnMetadata.put(name, value == null ? String.class.getName() :
+                value.getClass().getName()));
         return columnMetadata;
     }
 
-    private void setDynamicReportValue(JsonObject jsonObject, String dynamicValueName, String propertyValueName) {
-        if (reportProperties.containsKey(dynamicValueName)) {
-            String dynamicReportNameParameter = reportProperties.get(dynamicValueName);
-            JsonElement dynamicReportElement = jsonObject.get("event").getAsJsonObject().get
-                    (dynamicReportNameParameter.substring(1, dynamicReportNameParameter.length() - 1));
-            if (dynamicReportElement != null) {
-                String dynamicReportNameValue = dynamicReportElement.getAsString();
-                String dynamicOptionPattern = "(\\{\\w*\\})";
-                Pattern pattern = Pattern.compile(dynamicOptionPattern);
-                Matcher matcher = pattern.matcher(reportProperties.get(propertyValueName));
-                String newReportName = matcher.replaceAll(dynamicReportNameValue);
-                reportProperties.put(propertyValueName, newReportName);
-            }
-        }
-    }
-
-    private void buildAbstractColumns(Map<String, String> metaData, DynamicReportBuilder reportBuilder) {
-        int columnSize = ReportConstants.COLUMN_WIDTH / metaData.size();
-        for (Map.Entry<String, String> entry : metaData.entrySet()) {
-            ColumnBuilder columnBuilder = ColumnBuilder.getNew();
-            if (entry.getValue().equals(Integer.class.getName()) || entry.getValue().equals(Float.class.getName()
-            ) || entry.getValue().equals(Double.class.getName())) {
-                columnBuilder.addConditionalStyle(DynamicStyleProvider.getNumericalConditionalStyle());
-            } else if (entry.getValue().equals(String.class.getName())) {
-                columnBuilder.addConditionalStyle(DynamicStyleProvider.getStringConditionalStyle());
-            }
-
-            AbstractColumn abColumn = columnBuilder.setColumnProperty(entry.getKey(), entry.getValue())
-                    .setTitle(StringUtils.capitalize(entry.getKey())).setWidth(columnSize)
-                    .setHeaderStyle(DynamicStyleProvider.getColumnHeaderStyle(entry.getValue()))
-                    .build();
-            abstractColumns.add(abColumn);
-            abstractColumnMap.put(entry.getKey(), abColumn);
-            reportBuilder.addField(entry.getKey(), entry.getValue());
+    private Map<String, String> getColumnMetaData(ReportEventBuffer buffer) {
+        Map<String, String> columnMetadata = new LinkedHashMap<>();
+        String[] columnNames = buffer.getColumnNames();
+        for (int i = 0; i < columnNames.length; i++) {
+            Object value = buffer.getValue(0, i);
+            columnMetadata.put(columnNames[i], value == null ? String.class.getName() : value.getClass().getName());
         }
+        return columnMetadata;
     }
 
     public List<AbstractColumn> getColumns() {
-        return abstractColumns;
+        return columnSchema.getColumns();
     }
 
     public AbstractColumn getCategoryColumn(String columnName) {
-        return abstractColumnMap.get(columnName);
+        return columnSchema.getColumn(columnName);
     }
 
     public AbstractColumn getSeriesColumn(String columnName) {
-        return abstractColumnMap.get(columnName);
-    }
-
-    public Map<String, List<Map<String, Object>>> getDataWithMultipleDatasets(Object payload) {
-        Map<String, List<Map<String, Object>>> multipleDatasourceData = new HashMap<>();
-        JsonElement payloadJson = parsePayload(payload.toString());
-        JsonArray events = getEvents(payloadJson);
-        setDynamicReportValue(events.get(0).getAsJsonObject(), ReportConstants.REPORT_DYNAMIC_DATASET_VALUE,
-                ReportConstants.DATASET);
-        for (JsonElement eventElement : events) {
-            JsonObject jsonObject = eventElement.getAsJsonObject();
-            Map<String, Object> eventMap = getMapFromJsonObject(jsonObject);
-            String datasetAttribute = ReportConstants.EMPTY_STRING;
-            if (reportProperties.containsKey(ReportConstants.REPORT_DYNAMIC_DATASET_VALUE)) {
-                String datasetAttributeTemp = reportProperties.get(ReportConstants.REPORT_DYNAMIC_DATASET_VALUE);
-                datasetAttribute = datasetAttributeTemp.substring(1, datasetAttributeTemp.length() - 1);
-            } else if (reportProperties.containsKey(ReportConstants.DATASET)) {
-                //this is for the given dataset name directly
-                datasetAttribute = reportProperties.get(ReportConstants.DATASET);
-            }
-            if (datasetAttribute.isEmpty()) {
-                // the default value for dataset is taken as the value of the first parameter
-                datasetAttribute = eventMap.entrySet().iterator().next().getKey();
-            }
+        return columnSchema.getColumn(columnName);
+    }
+
+    /**
+     * This method groups the decoded events into the datasets of the template by the value of the dataset attribute.
+     * The dataset attribute is removed from the events.
+     *
+     * @param events the events decoded by {@link #getData(Object)}
+     * @return the events of each dataset, keyed by the dataset name
+     */
+    public Map<String, List<Map<String, Object>>> getDataWithMultipleDatasets(List<Map<String, Object>> events) {
+        Map<String, List<Map<String, Object>>> multipleDatasourceData = new LinkedHashMap<>();
+        if (events.isEmpty()) {
+            return multipleDatasourceData;
+        }
+        String datasetAttribute = getDatasetAttribute();
+        if (datasetAttribute.isEmpty()) {
+            // the default value for dataset is taken as the value of the first parameter
+            datasetAttribute = events.get(0).keySet().iterator().next();
+        }
+        for (Map<String, Object> eventMap : events) {
+            String datasetName = String.valueOf(eventMap.remove(datasetAttribute));
+            multipleDatasourceData.computeIfAbsent(datasetName, name -> new ArrayList<>()).add(eventMap);
+        }
+        return multipleDatasourceData;
+    }
 
-            String datasetName = eventMap.get(datasetAttribute).toString();
-            List<Map<String, Object>> dataset;
-            if (multipleDatasourceData.containsKey(datasetName)) {
-                dataset = multipleDatasourceData.get(datasetName);
-            } else {
-                dataset = new ArrayList<>();
-            }
-            eventMap.remove(datasetName);
-            dataset.add(eventMap);
-            multipleDatasourceData.put(datasetName, dataset);
+    /**
+     * This method groups the buffered events into the datasets of the template by the value of the dataset
+     * attribute, and provides a data source for each dataset. The dataset attribute is removed from the events.
+     *
+     * @param buffer the batch of events
+     * @return the data source of each dataset, keyed by the dataset name
+     */
+    public Map<String, ReportEventDataSource> getDataWithMultipleDatasets(ReportEventBuffer buffer) {
+        String datasetAttribute = getDatasetAttribute();
+        if (datasetAttribute.isEmpty()) {
+            // the default value for dataset is taken as the value of the first parameter
+            datasetAttribute = buffer.getColumnNames()[0];
         }
-        setDynamicReportValue(events.get(0).getAsJsonObject(), ReportConstants.REPORT_DYNAMIC_NAME_VALUE,
-                ReportConstants.OUTPUT_PATH);
+        Map<String, ReportEventDataSource> multipleDatasourceData = new LinkedHashMap<>();
+        buffer.groupBy(datasetAttribute, true).forEach((datasetName, dataset) ->
+                multipleDatasourceData.put(datasetName, dataset.getDataSource()));
         return multipleDatasourceData;
     }
 
+    private String getDatasetAttribute() {
+        if (reportProperties.containsKey(ReportConstants.REPORT_DYNAMIC_DATASET_VALUE)) {
+            String datasetAttribute = reportProperties.get(ReportConstants.REPORT_DYNAMIC_DATASET_VALUE);
+            return datasetAttribute.substring(1, datasetAttribute.length() - 1);
+        } else if (reportProperties.containsKey(ReportConstants.DATASET)) {
+            //this is for the given dataset name directly
+            return reportProperties.get(ReportConstants.DATASET);
+        }
+        return ReportConstants.EMPTY_STRING;
+    }
+
     public AbstractColumn getCategoryColumn() {
-        return abstractColumns.get(0);
+        return columnSchema.getColumns().get(0);
     }
 
     public AbstractColumn getSeriesColumn() {
-        return abstractColumns.get(1);
+        return columnSchema.getColumns().get(1);
     }
 }
@@ -53,6 +53,16 @@ public class QueryModeDataProvider implements DataProvider {
         this.dataSource = RDBMSUtil.getDataSourceService(this.dataSourceName);
     }
 
+    /**
+     * Creates a data provider for another query on the same datasource, without looking up the datasource again.
+     *
+     * @param dataProvider the data provider of the datasource
+     */
+    public QueryModeDataProvider(QueryModeDataProvider dataProvider) {
+        this.dataSourceName = dataProvider.dataSourceName;
+        this.dataSource = dataProvider.dataSource;
+    }
+
     public void setReportBuilder(DynamicReportBuilder reportBuilder) {
         this.reportBuilder = reportBuilder;
     }
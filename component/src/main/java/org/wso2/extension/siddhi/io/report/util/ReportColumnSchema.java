@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.extension.siddhi.io.report.util;
+
+import ar.com.fdvs.dj.domain.builders.ColumnBuilder;
+import ar.com.fdvs.dj.domain.builders.DynamicReportBuilder;
+import ar.com.fdvs.dj.domain.entities.columns.AbstractColumn;
+import org.apache.commons.lang3.StringUtils;
+import org.wso2.siddhi.query.api.definition.Attribute;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class holds the columns of a dynamic report. The schema of the sink is created once from the attributes of
+ * the stream, so that the column types follow the attribute types (e.g., an int attribute is an Integer column even
+ * though a JSON number is decoded as a double) and the columns are not built again for each report.
+ */
+public class ReportColumnSchema {
+    private final Map<String, String> columnClasses;
+    private final List<AbstractColumn> columns;
+    private final Map<String, AbstractColumn> columnMap;
+    private final Map<String, Integer> columnIndexes;
+    private final String[] columnNames;
+    private final Attribute.Type[] columnTypes;
+
+    /**
+     * Creates the schema of the given columns.
+     *
+     * @param columnClasses the class name of each column, in the order of the columns
+     */
+    public ReportColumnSchema(Map<String, String> columnClasses) {
+        this.columnClasses = Collections.unmodifiableMap(new LinkedHashMap<>(columnClasses));
+        List<AbstractColumn> columnList = new ArrayList<>();
+        this.columnMap = new HashMap<>();
+        Map<String, Integer> indexes = new HashMap<>();
+        int columnSize = ReportConstants.COLUMN_WIDTH / columnClasses.size();
+        for (Map.Entry<String, String> entry : this.columnClasses.entrySet()) {
+            AbstractColumn column = buildColumn(entry.getKey(), entry.getValue(), columnSize);
+            columnList.add(column);
+            columnMap.put(entry.getKey(), column);
+            indexes.put(entry.getKey(), indexes.size());
+        }
+        this.columns = Collections.unmodifiableList(columnList);
+        this.columnIndexes = Collections.unmodifiableMap(indexes);
+        this.columnNames = this.columnClasses.keySet().toArray(new String[0]);
+        this.columnTypes = this.columnClasses.values().stream().map(ReportColumnSchema::getColumnType)
+                .toArray(Attribute.Type[]::new);
+    }
+
+    /**
+     * This method creates the schema of the attributes of a stream.
+     *
+     * @param attributes the attributes of the stream
+     * @return the schema with a column for each attribute
+     */
+    public static ReportColumnSchema fromAttributes(List<Attribute> attributes) {
+        Map<String, String> columnClasses = new LinkedHashMap<>();
+        for (Attribute attribute : attributes) {
+            columnClasses.put(attribute.getName(), getColumnClass(attribute.getType()).getName());
+        }
+        return new ReportColumnSchema(columnClasses);
+    }
+
+    private static Class<?> getColumnClass(Attribute.Type type) {
+        switch (type) {
+            case INT:
+                return Integer.class;
+            case LONG:
+                return Long.class;
+            case FLOAT:
+                return Float.class;
+            case DOUBLE:
+                return Double.class;
+            case BOOL:
+                return Boolean.class;
+            case STRING:
+                return String.class;
+            default:
+                return Object.class;
+        }
+    }
+
+    private static Attribute.Type getColumnType(String columnClass) {
+        if (columnClass.equals(Integer.class.getName())) {
+            return Attribute.Type.INT;
+        } else if (columnClass.equals(Long.class.getName())) {
+            return Attribute.Type.LONG;
+        } else if (columnClass.equals(Float.class.getName())) {
+            return Attribute.Type.FLOAT;
+        } else if (columnClass.equals(Double.class.getName())) {
+            return Attribute.Type.DOUBLE;
+        } else if (columnClass.equals(Boolean.class.getName())) {
+            return Attribute.Type.BOOL;
+        } else if (columnClass.equals(String.class.getName())) {
+            return Attribute.Type.STRING;
+        }
+        return Attribute.Type.OBJECT;
+    }
+
+    private static AbstractColumn buildColumn(String columnName, String columnClass, int columnSize) {
+        ColumnBuilder columnBuilder = ColumnBuilder.getNew();
+        if (columnClass.equals(Integer.class.getName()) || columnClass.equals(Float.class.getName()) ||
+                columnClass.equals(Double.class.getName()) || columnClass.equals(Long.class.getName())) {
+            columnBuilder.addConditionalStyle(DynamicStyleProvider.getNumericalConditionalStyle());
+        } else if (columnClass.equals(String.class.getName())) {
+            columnBuilder.addConditionalStyle(DynamicStyleProvider.getStringConditionalStyle());
+        }
+        return columnBuilder.setColumnProperty(columnName, columnClass)
+                .setTitle(StringUtils.capitalize(columnName)).setWidth(columnSize)
+                .setHeaderStyle(DynamicStyleProvider.getColumnHeaderStyle(columnClass))
+                .build();
+    }
+
+    /**
+     * This method adds a report field for each column to the builder of a report.
+     *
+     * @param reportBuilder the builder of the report
+     */
+    public void addFields(DynamicReportBuilder reportBuilder) {
+        columnClasses.forEach(reportBuilder::addField);
+    }
+
+    public Map<String, String> getColumnClasses() {
+        return columnClasses;
+    }
+
+    public List<AbstractColumn> getColumns() {
+        return columns;
+    }
+
+    /**
+     * This method returns the index of each column by name, in the order of the columns.
+     *
+     * @return the index of each column
+     */
+    public Map<String, Integer> getColumnIndexes() {
+        return columnIndexes;
+    }
+
+    public String[] getColumnNames() {
+        return Arrays.copyOf(columnNames, columnNames.length);
+    }
+
+    /**
+     * This method returns the attribute type of each column, in the order of the columns, so that the events of the
+     * columns can be decoded into the types of the columns.
+     *
+     * @return the attribute type of each column
+     */
+    public Attribute.Type[] getColumnTypes() {
+        return Arrays.copyOf(columnTypes, columnTypes.length);
+    }
+
+    public AbstractColumn getColumn(String columnName) {
+        return columnMap.get(columnName);
+    }
+}
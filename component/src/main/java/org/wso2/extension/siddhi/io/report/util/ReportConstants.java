@@ -48,6 +48,21 @@ public class ReportConstants {
     public static final String QUERY = "query";
     public static final String REPORT_DYNAMIC_NAME_VALUE = "report.dynamic.name.value";
     public static final String REPORT_DYNAMIC_DATASET_VALUE = "report.dynamic.dataset.value";
+    public static final String ASYNC = "async";
+    public static final String ASYNC_QUEUE_SIZE = "async.queue.size";
+    public static final String ASYNC_WORKERS = "async.workers";
+    public static final String ASYNC_OVERLOAD_POLICY = "async.overload.policy";
+    public static final String ASYNC_EXECUTOR = "async.executor";
+    public static final String ASYNC_MAX_CONCURRENT_FILLS = "async.max.concurrent.fills";
+    public static final String REPORT_INTERVAL = "report.interval";
+    public static final String REPORT_MAX_EVENTS = "report.max.events";
+    public static final String PARTITION_PARALLELISM = "partition.parallelism";
+    public static final String SHUTDOWN_TIMEOUT = "shutdown.timeout";
+    public static final String BUFFER_SPILL_THRESHOLD = "buffer.spill.threshold";
+    public static final String BUFFER_SPILL_DIRECTORY = "buffer.spill.directory";
+    public static final String TEMPLATE_CACHE = "template.cache";
+    public static final String TEMPLATE_CACHE_DIRECTORY = "template.cache.directory";
+    public static final String TEMPLATE_RELOAD = "template.reload";
 
     /* default values of configuration parameters*/
     public static final String DEFAULT_TEMPLATE = "dynamicTemplate.jrxml";
@@ -56,6 +71,15 @@ public class ReportConstants {
     public static final String DEFAULT_REPORT_NAME = "SiddhiReport";
     public static final String DEFAULT_MODE = "stream";
     public static final String PDF = "pdf";
+    public static final String DEFAULT_ASYNC = "false";
+    public static final String DEFAULT_ASYNC_QUEUE_SIZE = "1024";
+    public static final String DEFAULT_ASYNC_WORKERS = "1";
+    public static final String DEFAULT_ASYNC_OVERLOAD_POLICY = "block";
+    public static final String DEFAULT_ASYNC_EXECUTOR = "fixed";
+    public static final String DEFAULT_SHUTDOWN_TIMEOUT = "30 sec";
+    public static final String DEFAULT_BUFFER_SPILL_DIRECTORY = System.getProperty("java.io.tmpdir");
+    public static final String DEFAULT_TEMPLATE_CACHE = "false";
+    public static final String DEFAULT_TEMPLATE_RELOAD = "false";
 
     public static final int COLUMN_WIDTH = 400;
     public static final String GREY_BACKGROUND = "#616161";
@@ -67,6 +91,13 @@ public class ReportConstants {
     public static final int VERTICAL_PADDING = 5;
 
     public static final String EMPTY_STRING = "";
+    public static final String COMPILED_TEMPLATE_EXTENSION = ".jasper";
+    public static final String JSON_MAP_TYPE = "json";
+    public static final String PASS_THROUGH_MAP_TYPE = "passThrough";
+
+    /* keys of the snapshot state*/
+    public static final String STATE_COLUMNS = "columns";
+    public static final String STATE_BUFFERED_EVENTS = "buffered.events";
 
     /**
      * Valid chart types
@@ -86,4 +117,22 @@ public class ReportConstants {
         EXCEL,
         CSV,
     }
+
+    /**
+     * Valid executor types of the asynchronous render pipeline
+     */
+    public enum ExecutorTypes {
+        FIXED,
+        VIRTUAL,
+    }
+
+    /**
+     * Valid overload policies of the asynchronous render queue
+     */
+    public enum OverloadPolicies {
+        BLOCK,
+        DROP_OLDEST,
+        DROP_NEWEST,
+        COALESCE,
+    }
 }
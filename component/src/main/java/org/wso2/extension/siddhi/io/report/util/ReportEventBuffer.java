@@ -0,0 +1,548 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.extension.siddhi.io.report.util;
+
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
+import org.wso2.siddhi.query.api.definition.Attribute;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * This class accumulates the events published to the report sink so that they can be rendered as a single report.
+ * The events are kept in columns, one for each attribute, where numeric values are kept in primitive arrays and
+ * strings as dictionary codes, instead of a map or an array of boxed values per event. If the attribute types are
+ * given, the numbers of the JSON payloads are decoded into the type of their attribute without boxing them. If a
+ * spill threshold is given, the events are moved to memory mapped segment files whenever that many events are kept
+ * in the heap.
+ */
+public class ReportEventBuffer {
+    private static final int SNAPSHOT_CHUNK_SIZE = 1024;
+    private static final int GROUPING_CHUNK_SIZE = 8192;
+    private final String[] columnNames;
+    private final Attribute.Type[] columnTypes;
+    private final Map<String, Integer> columnIndexes;
+    private final int maxEvents;
+    private final int spillThreshold;
+    private final Path spillDirectory;
+    // the columns into which the JSON payloads are decoded are reused by the publishers, and a publisher which finds
+    // them in use creates columns of its own.
+    private final AtomicReference<ReportEventColumn[]> idleColumns = new AtomicReference<>();
+    private ReportEventColumn[] columns;
+    private List<ReportEventSegment> segments;
+    private int spilledRows;
+    private int size;
+    private List<byte[]> snapshotChunks;
+
+    /**
+     * Creates a buffer without a limit on the number of events.
+     *
+     * @param columnNames the attribute names of the buffered events
+     */
+    public ReportEventBuffer(String[] columnNames) {
+        this(columnNames, 0);
+    }
+
+    /**
+     * Creates a buffer which rolls over after the given number of events.
+     *
+     * @param columnNames the attribute names of the buffered events
+     * @param maxEvents   the maximum number of events in a rendered batch, or 0 for no limit
+     */
+    public ReportEventBuffer(String[] columnNames, int maxEvents) {
+        this(columnNames, maxEvents, 0, null);
+    }
+
+    /**
+     * Creates a buffer which rolls over after the given number of events, and spills the events to the disk when
+     * the given number of events are kept in the heap.
+     *
+     * @param columnNames    the attribute names of the buffered events
+     * @param maxEvents      the maximum number of events in a rendered batch, or 0 for no limit
+     * @param spillThreshold the maximum number of events kept in the heap, or 0 to keep all the events in the heap
+     * @param spillDirectory the directory of the files to which the events are spilled
+     */
+    public ReportEventBuffer(String[] columnNames, int maxEvents, int spillThreshold, Path spillDirectory) {
+        this(columnNames, null, maxEvents, spillThreshold, spillDirectory);
+    }
+
+    /**
+     * Creates a buffer of events with the given attribute types, which rolls over after the given number of events
+     * and spills the events to the disk when the given number of events are kept in the heap.
+     *
+     * @param columnNames    the attribute names of the buffered events
+     * @param columnTypes    the attribute types of the buffered events, or null to take them from the values
+     * @param maxEvents      the maximum number of events in a rendered batch, or 0 for no limit
+     * @param spillThreshold the maximum number of events kept in the heap, or 0 to keep all the events in the heap
+     * @param spillDirectory the directory of the files to which the events are spilled
+     */
+    public ReportEventBuffer(String[] columnNames, Attribute.Type[] columnTypes, int maxEvents, int spillThreshold,
+                             Path spillDirectory) {
+        this.columnNames = Arrays.copyOf(columnNames, columnNames.length);
+        this.columnTypes = columnTypes == null ? null : Arrays.copyOf(columnTypes, columnTypes.length);
+        this.columnIndexes = new HashMap<>();
+        for (int i = 0; i < columnNames.length; i++) {
+            columnIndexes.put(columnNames[i], i);
+        }
+        this.maxEvents = maxEvents;
+        this.spillThreshold = spillThreshold;
+        this.spillDirectory = spillDirectory;
+        this.columns = newColumns();
+        this.segments = new ArrayList<>();
+        this.snapshotChunks = new ArrayList<>();
+    }
+
+    private ReportEventBuffer(ReportEventBuffer buffer) {
+        this.columnNames = buffer.columnNames;
+        this.columnTypes = buffer.columnTypes;
+        this.columnIndexes = buffer.columnIndexes;
+        this.maxEvents = 0;
+        this.spillThreshold = buffer.spillThreshold;
+        this.spillDirectory = buffer.spillDirectory;
+        this.columns = buffer.columns;
+        this.segments = buffer.segments;
+        this.spilledRows = buffer.spilledRows;
+        this.size = buffer.size;
+        this.snapshotChunks = new ArrayList<>();
+    }
+
+    private ReportEventColumn[] newColumns() {
+        ReportEventColumn[] newColumns = new ReportEventColumn[columnNames.length];
+        for (int i = 0; i < newColumns.length; i++) {
+            newColumns[i] = new ReportEventColumn(columnTypes == null ? null : columnTypes[i]);
+        }
+        return newColumns;
+    }
+
+    /**
+     * This method appends the events of a payload to the buffer. The payload can either be the JSON of a single event
+     * or an array of events, or the events of the passThrough mapper. Whenever the buffer reaches the maximum number
+     * of events, the buffered events are moved to a separate batch.
+     *
+     * @param payload the payload published to the sink
+     * @return the batches which reached the maximum number of events, if any
+     */
+    public List<ReportEventBuffer> add(Object payload) {
+        List<ReportEventBuffer> completedBatches = Collections.emptyList();
+        if (payload instanceof Event) {
+            synchronized (this) {
+                addRow(toRow((Event) payload));
+                return rollOver(completedBatches);
+            }
+        }
+        if (payload instanceof Event[]) {
+            synchronized (this) {
+                for (Event event : (Event[]) payload) {
+                    addRow(toRow(event));
+                    completedBatches = rollOver(completedBatches);
+                }
+            }
+            return completedBatches;
+        }
+        // the events are decoded into reused columns before the buffer is locked, and the values are copied from
+        // them without boxing.
+        ReportEventColumn[] decodedColumns = idleColumns.getAndSet(null);
+        if (decodedColumns == null) {
+            decodedColumns = newColumns();
+        }
+        try {
+            int eventCount = ReportJsonDecoder.decodeColumns(payload.toString(), columnIndexes, decodedColumns);
+            synchronized (this) {
+                for (int i = 0; i < eventCount; i++) {
+                    addRow(decodedColumns, i);
+                    completedBatches = rollOver(completedBatches);
+                }
+            }
+            return completedBatches;
+        } finally {
+            for (ReportEventColumn column : decodedColumns) {
+                column.clear();
+            }
+            idleColumns.set(decodedColumns);
+        }
+    }
+
+    private List<ReportEventBuffer> rollOver(List<ReportEventBuffer> completedBatches) {
+        if (maxEvents == 0 || size < maxEvents) {
+            return completedBatches;
+        }
+        List<ReportEventBuffer> batches = completedBatches.isEmpty() ? new ArrayList<>() : completedBatches;
+        batches.add(drain());
+        return batches;
+    }
+
+    private Object[] toRow(Event event) {
+        // the attribute values are in the order of the stream attributes, which is the order of the columns. They
+        // are copied into the columns, hence the data of the event is not copied here.
+        return event.getData();
+    }
+
+    private void addRow(Object[] row) {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].add(i < row.length ? row[i] : null);
+        }
+        rowAdded();
+    }
+
+    private void addRow(ReportEventColumn[] sourceColumns, int rowIndex) {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].addFrom(sourceColumns[i], rowIndex);
+        }
+        rowAdded();
+    }
+
+    private void rowAdded() {
+        size++;
+        if (spillThreshold > 0 && size - spilledRows >= spillThreshold) {
+            spill();
+        }
+    }
+
+    private void spill() {
+        int heapRows = size - spilledRows;
+        segments.add(ReportEventSegment.write(spillDirectory, columns, heapRows));
+        spilledRows = size;
+        columns = newColumns();
+    }
+
+    private Object[] getRow(int rowIndex) {
+        return fillRow(rowIndex, new Object[columnNames.length]);
+    }
+
+    /**
+     * This method reads the attribute values of a buffered event into the given array, so that the values of an
+     * event spilled to the disk are decoded once for all the attributes.
+     *
+     * @param rowIndex the index of the event
+     * @param row      the array to which the attribute values are read
+     * @return the array with the attribute values
+     */
+    synchronized Object[] readRow(int rowIndex, Object[] row) {
+        checkRowIndex(rowIndex);
+        return fillRow(rowIndex, row);
+    }
+
+    private Object[] fillRow(int rowIndex, Object[] row) {
+        if (rowIndex < spilledRows) {
+            segments.get(rowIndex / spillThreshold).readRow(rowIndex % spillThreshold, row);
+        } else {
+            for (int i = 0; i < columns.length; i++) {
+                row[i] = columns[i].get(rowIndex - spilledRows);
+            }
+        }
+        return row;
+    }
+
+    private Object valueAt(int rowIndex, int columnIndex) {
+        if (rowIndex < spilledRows) {
+            return segments.get(rowIndex / spillThreshold).getValue(rowIndex % spillThreshold, columnIndex);
+        }
+        return columns[columnIndex].get(rowIndex - spilledRows);
+    }
+
+    private void checkRowIndex(int rowIndex) {
+        if (rowIndex < 0 || rowIndex >= size) {
+            throw new IndexOutOfBoundsException("Index: " + rowIndex + ", Size: " + size);
+        }
+    }
+
+    private List<Object[]> getRows(int fromIndex, int toIndex) {
+        List<Object[]> rows = new ArrayList<>(toIndex - fromIndex);
+        for (int i = fromIndex; i < toIndex; i++) {
+            rows.add(getRow(i));
+        }
+        return rows;
+    }
+
+    /**
+     * This method moves the buffered events to a new batch and clears the buffer.
+     *
+     * @return the batch of buffered events, or null if there are no buffered events
+     */
+    public synchronized ReportEventBuffer drain() {
+        if (size == 0) {
+            return null;
+        }
+        ReportEventBuffer batch = new ReportEventBuffer(this);
+        columns = newColumns();
+        segments = new ArrayList<>();
+        spilledRows = 0;
+        size = 0;
+        snapshotChunks = new ArrayList<>();
+        return batch;
+    }
+
+    /**
+     * This method encodes the buffered events for a snapshot. The events are encoded in chunks, and as the buffer
+     * only grows until it is drained, the chunks which are full are encoded once and reused by the later snapshots.
+     * This only saves the encoding of the events. Every snapshot still holds all the buffered events, since the state
+     * of a sink is stored as a whole in each snapshot of the Siddhi app, hence the size of a snapshot grows with the
+     * number of buffered events.
+     *
+     * @return the encoded chunks of buffered events
+     */
+    public synchronized List<byte[]> snapshot() {
+        int fullChunks = size / SNAPSHOT_CHUNK_SIZE;
+        while (snapshotChunks.size() < fullChunks) {
+            int fromIndex = snapshotChunks.size() * SNAPSHOT_CHUNK_SIZE;
+            snapshotChunks.add(ReportEventCodec.encode(getRows(fromIndex, fromIndex + SNAPSHOT_CHUNK_SIZE),
+                    columnNames.length));
+        }
+        List<byte[]> chunks = new ArrayList<>(snapshotChunks);
+        if (size > fullChunks * SNAPSHOT_CHUNK_SIZE) {
+            chunks.add(ReportEventCodec.encode(getRows(fullChunks * SNAPSHOT_CHUNK_SIZE, size),
+                    columnNames.length));
+        }
+        return chunks;
+    }
+
+    /**
+     * This method replaces the buffered events with the events of a snapshot.
+     *
+     * @param chunks the encoded chunks of events returned by {@link #snapshot()}
+     */
+    public synchronized void restore(List<byte[]> chunks) {
+        columns = newColumns();
+        segments = new ArrayList<>();
+        spilledRows = 0;
+        size = 0;
+        snapshotChunks = new ArrayList<>();
+        for (byte[] chunk : chunks) {
+            List<Object[]> chunkRows = ReportEventCodec.decode(chunk, columnNames.length);
+            boolean fullChunksOnly = snapshotChunks.size() * SNAPSHOT_CHUNK_SIZE == size;
+            chunkRows.forEach(this::addRow);
+            if (fullChunksOnly && chunkRows.size() == SNAPSHOT_CHUNK_SIZE) {
+                snapshotChunks.add(chunk);
+            }
+        }
+    }
+
+    /**
+     * This method appends the events of another batch with the same attributes to this buffer.
+     *
+     * @param batch the batch of events to be appended
+     */
+    public void append(ReportEventBuffer batch) {
+        List<Object[]> batchRows;
+        synchronized (batch) {
+            batchRows = batch.getRows(0, batch.size);
+        }
+        synchronized (this) {
+            batchRows.forEach(this::addRow);
+        }
+    }
+
+    /**
+     * This method groups the buffered events by the value of the given attribute, keeping the order in which the
+     * values first appear.
+     *
+     * @param columnName the attribute to group the events by
+     * @return a batch of events for each distinct value of the attribute
+     */
+    public Map<String, ReportEventBuffer> groupBy(String columnName) {
+        return groupBy(columnName, false);
+    }
+
+    /**
+     * This method groups the buffered events by the value of the given attribute in a single pass, keeping the order
+     * in which the values first appear. Large buffers are split into chunks which are grouped in parallel, each into
+     * groups of its own, and the groups of the chunks are merged in the order of the chunks.
+     *
+     * @param columnName    the attribute to group the events by
+     * @param excludeColumn whether the attribute is removed from the events of the groups
+     * @return a batch of events for each distinct value of the attribute
+     */
+    public synchronized Map<String, ReportEventBuffer> groupBy(String columnName, boolean excludeColumn) {
+        int columnIndex = getColumnIndex(columnName);
+        if (columnIndex < 0) {
+            throw new SiddhiAppRuntimeException("Cannot group the report events by '" + columnName + "' as it is " +
+                    "not an attribute of the events " + Arrays.toString(columnNames) + ".");
+        }
+        int rowCount = size;
+        int chunkCount = (rowCount + GROUPING_CHUNK_SIZE - 1) / GROUPING_CHUNK_SIZE;
+        IntStream chunks = chunkCount > 1 ? IntStream.range(0, chunkCount).parallel() : IntStream.range(0, chunkCount);
+        List<Map<String, RowIndexes>> chunkGroups = chunks.mapToObj(chunk -> groupRowIndexes(columnIndex,
+                chunk * GROUPING_CHUNK_SIZE, Math.min(rowCount, (chunk + 1) * GROUPING_CHUNK_SIZE)))
+                .collect(Collectors.toList());
+        Map<String, RowIndexes> rowGroups = new LinkedHashMap<>();
+        for (Map<String, RowIndexes> chunkGroup : chunkGroups) {
+            chunkGroup.forEach((key, rowIndexes) -> rowGroups.merge(key, rowIndexes, RowIndexes::addAll));
+        }
+
+        String[] groupColumnNames = columnNames;
+        Attribute.Type[] groupColumnTypes = columnTypes;
+        int excludedColumn = -1;
+        if (excludeColumn) {
+            groupColumnNames = removeColumn(columnNames, columnIndex, new String[columnNames.length - 1]);
+            if (columnTypes != null) {
+                groupColumnTypes = removeColumn(columnTypes, columnIndex, new Attribute.Type[columnTypes.length - 1]);
+            }
+            excludedColumn = columnIndex;
+        }
+        Map<String, ReportEventBuffer> groups = new LinkedHashMap<>();
+        for (String key : rowGroups.keySet()) {
+            groups.put(key, new ReportEventBuffer(groupColumnNames, groupColumnTypes, 0, spillThreshold,
+                    spillDirectory));
+        }
+        int skippedColumn = excludedColumn;
+        Stream<Map.Entry<String, ReportEventBuffer>> groupStream = chunkCount > 1 ?
+                groups.entrySet().parallelStream() : groups.entrySet().stream();
+        groupStream.forEach(group -> {
+            RowIndexes rowIndexes = rowGroups.get(group.getKey());
+            // the buffer is locked by this thread, hence the rows are read without locking by the parallel tasks.
+            Object[] row = new Object[columnNames.length];
+            Object[] groupRow = new Object[group.getValue().columnNames.length];
+            for (int i = 0; i < rowIndexes.size; i++) {
+                group.getValue().copyRow(fillRow(rowIndexes.values[i], row), skippedColumn, groupRow);
+            }
+        });
+        return groups;
+    }
+
+    private static <T> T[] removeColumn(T[] values, int columnIndex, T[] remainingValues) {
+        System.arraycopy(values, 0, remainingValues, 0, columnIndex);
+        System.arraycopy(values, columnIndex + 1, remainingValues, columnIndex, values.length - columnIndex - 1);
+        return remainingValues;
+    }
+
+    private Map<String, RowIndexes> groupRowIndexes(int columnIndex, int fromIndex, int toIndex) {
+        Map<String, RowIndexes> rowGroups = new LinkedHashMap<>();
+        for (int i = fromIndex; i < toIndex; i++) {
+            rowGroups.computeIfAbsent(formatValue(valueAt(i, columnIndex)), key -> new RowIndexes()).add(i);
+        }
+        return rowGroups;
+    }
+
+    private void copyRow(Object[] sourceRow, int excludedColumn, Object[] row) {
+        if (excludedColumn < 0) {
+            addRow(sourceRow);
+            return;
+        }
+        System.arraycopy(sourceRow, 0, row, 0, excludedColumn);
+        System.arraycopy(sourceRow, excludedColumn + 1, row, excludedColumn, row.length - excludedColumn);
+        addRow(row);
+    }
+
+    /**
+     * This method creates a batch with the events of a payload.
+     *
+     * @param columnNames the attribute names of the events
+     * @param payload     the JSON payload or the events published to the sink
+     * @return the batch of events in the payload
+     */
+    public static ReportEventBuffer fromPayload(String[] columnNames, Object payload) {
+        return fromPayload(columnNames, null, payload);
+    }
+
+    /**
+     * This method creates a batch with the events of a payload, decoding the numbers of a JSON payload into the
+     * types of their attributes.
+     *
+     * @param columnNames the attribute names of the events
+     * @param columnTypes the attribute types of the events, or null to take them from the values
+     * @param payload     the JSON payload or the events published to the sink
+     * @return the batch of events in the payload
+     */
+    public static ReportEventBuffer fromPayload(String[] columnNames, Attribute.Type[] columnTypes, Object payload) {
+        ReportEventBuffer buffer = new ReportEventBuffer(columnNames, columnTypes, 0, 0, null);
+        buffer.add(payload);
+        return buffer;
+    }
+
+    /**
+     * This method returns the string representation of a buffered value as it appears in the JSON payload. Numeric
+     * values are decoded as doubles, hence whole numbers such as 100 are converted back without the fraction.
+     *
+     * @param value the buffered value
+     * @return the string representation of the value
+     */
+    public static String formatValue(Object value) {
+        if (value instanceof Double) {
+            double doubleValue = (Double) value;
+            if (doubleValue == Math.rint(doubleValue) && !Double.isInfinite(doubleValue)) {
+                return Long.toString((long) doubleValue);
+            }
+        }
+        return String.valueOf(value);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    public String[] getColumnNames() {
+        return Arrays.copyOf(columnNames, columnNames.length);
+    }
+
+    public int getColumnIndex(String columnName) {
+        Integer columnIndex = columnIndexes.get(columnName);
+        return columnIndex == null ? -1 : columnIndex;
+    }
+
+    public synchronized Object getValue(int rowIndex, int columnIndex) {
+        checkRowIndex(rowIndex);
+        return valueAt(rowIndex, columnIndex);
+    }
+
+    /**
+     * This method returns a data source which iterates over the buffered events.
+     *
+     * @return a JasperReports data source of the buffered events
+     */
+    public ReportEventDataSource getDataSource() {
+        return new ReportEventDataSource(this);
+    }
+
+    /**
+     * The indexes of the buffered events of a group.
+     */
+    private static class RowIndexes {
+        private int[] values = new int[16];
+        private int size;
+
+        private void add(int rowIndex) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = rowIndex;
+        }
+
+        private RowIndexes addAll(RowIndexes rowIndexes) {
+            for (int i = 0; i < rowIndexes.size; i++) {
+                add(rowIndexes.values[i]);
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.extension.siddhi.io.report.util;
+
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class encodes buffered report events into a compact binary form for the snapshots of the report sink. Each
+ * value is written as a one byte type tag followed by the value, instead of serializing the event maps.
+ */
+public class ReportEventCodec {
+    private static final byte NULL_VALUE = 0;
+    private static final byte STRING_VALUE = 1;
+    private static final byte DOUBLE_VALUE = 2;
+    private static final byte BOOLEAN_VALUE = 3;
+    private static final byte LONG_VALUE = 4;
+    private static final byte INT_VALUE = 5;
+    private static final byte FLOAT_VALUE = 6;
+    private static final byte STRING_CODE_VALUE = 7;
+
+    /**
+     * This method encodes a list of events.
+     *
+     * @param rows        the events, each as an array of attribute values
+     * @param columnCount the number of attributes of an event
+     * @return the encoded events
+     */
+    public static byte[] encode(List<Object[]> rows, int columnCount) {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(byteStream)) {
+            out.writeInt(rows.size());
+            for (Object[] row : rows) {
+                for (int i = 0; i < columnCount; i++) {
+                    writeValue(out, row[i]);
+                }
+            }
+        } catch (IOException e) {
+            throw new SiddhiAppRuntimeException("Failed to encode the buffered report events.", e);
+        }
+        return byteStream.toByteArray();
+    }
+
+    /**
+     * This method decodes the events encoded by {@link #encode(List, int)}.
+     *
+     * @param encodedRows the encoded events
+     * @param columnCount the number of attributes of an event
+     * @return the decoded events
+     */
+    public static List<Object[]> decode(byte[] encodedRows, int columnCount) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encodedRows))) {
+            int rowCount = in.readInt();
+            List<Object[]> rows = new ArrayList<>(rowCount);
+            for (int i = 0; i < rowCount; i++) {
+                Object[] row = new Object[columnCount];
+                for (int j = 0; j < columnCount; j++) {
+                    row[j] = readValue(in);
+                }
+                rows.add(row);
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new SiddhiAppRuntimeException("Failed to decode the buffered report events.", e);
+        }
+    }
+
+    static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL_VALUE);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE_VALUE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN_VALUE);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG_VALUE);
+            out.writeLong((Long) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT_VALUE);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT_VALUE);
+            out.writeFloat((Float) value);
+        } else {
+            // the length is written separately as writeUTF is limited to 64KB per value.
+            byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+            out.writeByte(STRING_VALUE);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * This method writes a string as its code in a dictionary which is kept along with the encoded values, such as
+     * the dictionary of a column of spilled events.
+     *
+     * @param out  the stream to which the code is written
+     * @param code the code of the string in the dictionary
+     */
+    static void writeStringCode(DataOutputStream out, int code) throws IOException {
+        out.writeByte(STRING_CODE_VALUE);
+        out.writeInt(code);
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case NULL_VALUE:
+                return null;
+            case DOUBLE_VALUE:
+                return in.readDouble();
+            case BOOLEAN_VALUE:
+                return in.readBoolean();
+            case LONG_VALUE:
+                return in.readLong();
+            case INT_VALUE:
+                return in.readInt();
+            case FLOAT_VALUE:
+                return in.readFloat();
+            case STRING_VALUE:
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            default:
+                throw new IOException("Unknown value type " + type + ".");
+        }
+    }
+
+    /**
+     * This method reads a value written by {@link #writeValue(DataOutputStream, Object)} or
+     * {@link #writeStringCode(DataOutputStream, int)} from a buffer, such as a memory mapped file of spilled events.
+     *
+     * @param buffer     the buffer positioned at the value
+     * @param dictionary the strings of the written codes, or null if no codes are written
+     * @return the value
+     */
+    static Object readValue(ByteBuffer buffer, String[] dictionary) {
+        byte type = buffer.get();
+        switch (type) {
+            case NULL_VALUE:
+                return null;
+            case DOUBLE_VALUE:
+                return buffer.getDouble();
+            case BOOLEAN_VALUE:
+                return buffer.get() != 0;
+            case LONG_VALUE:
+                return buffer.getLong();
+            case INT_VALUE:
+                return buffer.getInt();
+            case FLOAT_VALUE:
+                return buffer.getFloat();
+            case STRING_VALUE:
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            case STRING_CODE_VALUE:
+                int code = buffer.getInt();
+                if (dictionary == null || code >= dictionary.length) {
+                    throw new SiddhiAppRuntimeException("Unknown string code " + code + " in the spilled report " +
+                            "events.");
+                }
+                return dictionary[code];
+            default:
+                throw new SiddhiAppRuntimeException("Unknown value type " + type + " in the spilled report events.");
+        }
+    }
+
+    /**
+     * This method moves the position of a buffer past a value written by
+     * {@link #writeValue(DataOutputStream, Object)}, without decoding it.
+     *
+     * @param buffer the buffer positioned at the value
+     */
+    static void skipValue(ByteBuffer buffer) {
+        byte type = buffer.get();
+        switch (type) {
+            case NULL_VALUE:
+                break;
+            case DOUBLE_VALUE:
+            case LONG_VALUE:
+                buffer.position(buffer.position() + Long.BYTES);
+                break;
+            case BOOLEAN_VALUE:
+                buffer.position(buffer.position() + 1);
+                break;
+            case INT_VALUE:
+            case FLOAT_VALUE:
+            case STRING_CODE_VALUE:
+                buffer.position(buffer.position() + Integer.BYTES);
+                break;
+            case STRING_VALUE:
+                int length = buffer.getInt();
+                buffer.position(buffer.position() + length);
+                break;
+            default:
+                throw new SiddhiAppRuntimeException("Unknown value type " + type + " in the spilled report events.");
+        }
+    }
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.extension.siddhi.io.report.util;
+
+import org.wso2.siddhi.query.api.definition.Attribute;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * This class stores the values of an attribute of the buffered report events. The type of the column is taken from
+ * the type of the stream attribute if it is known, or else from the first value which is not null. Numeric values are
+ * kept in a primitive array and strings are kept as codes of a dictionary, hence a buffered value does not need an
+ * object of its own. The dictionary of a column is shared by all its values, hence a repeated string is kept as a
+ * single instance. If a value does not match the type of the column, or most of the strings of the column are
+ * distinct, the column falls back to keeping the values as objects.
+ */
+class ReportEventColumn {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int DICTIONARY_SAMPLE_SIZE = 1024;
+    private final ColumnType attributeType;
+    private ColumnType type;
+    private int size;
+    private final BitSet nullValues = new BitSet();
+    private long[] longValues;
+    private double[] doubleValues;
+    private int[] stringCodes;
+    private ReportStringDictionary dictionary;
+    private Object[] objectValues;
+
+    /**
+     * The types of the values of a column.
+     */
+    private enum ColumnType {
+        INT, LONG, FLOAT, DOUBLE, STRING, OBJECT
+    }
+
+    ReportEventColumn() {
+        this(null);
+    }
+
+    /**
+     * Creates a column for the values of a stream attribute.
+     *
+     * @param attributeType the type of the attribute, or null to take the type from the values
+     */
+    ReportEventColumn(Attribute.Type attributeType) {
+        this.attributeType = getColumnType(attributeType);
+        if (this.attributeType != null) {
+            initialize(this.attributeType);
+        }
+    }
+
+    void add(Object value) {
+        if (value == null) {
+            nullValues.set(size);
+            size++;
+            return;
+        }
+        if (type == null) {
+            initialize(getColumnType(value));
+        } else if (type != ColumnType.OBJECT && type != getColumnType(value)) {
+            convertToObjects();
+        }
+        ensureCapacity(size + 1);
+        switch (type) {
+            case INT:
+            case LONG:
+                longValues[size] = ((Number) value).longValue();
+                break;
+            case FLOAT:
+            case DOUBLE:
+                doubleValues[size] = ((Number) value).doubleValue();
+                break;
+            case STRING:
+                stringCodes[size] = encode((String) value);
+                break;
+            default:
+                objectValues[size] = value;
+                break;
+        }
+        size++;
+        checkCardinality();
+    }
+
+    private void checkCardinality() {
+        if (type == ColumnType.STRING && size >= DICTIONARY_SAMPLE_SIZE && dictionary.size() > size / 2) {
+            // the dictionary takes more space than it saves when most of the strings are distinct.
+            convertToObjects();
+        }
+    }
+
+    void addNull() {
+        nullValues.set(size);
+        size++;
+    }
+
+    /**
+     * This method appends a whole number without boxing it, if the column keeps its values as whole numbers. The
+     * column of a decimal attribute keeps the number as a decimal number.
+     *
+     * @param value the value to be appended
+     */
+    void addLong(long value) {
+        if (type == null) {
+            initialize(ColumnType.LONG);
+        }
+        if (type == ColumnType.LONG || (attributeType != null && type == ColumnType.INT && (int) value == value)) {
+            appendLong(value);
+        } else if (attributeType != null && (type == ColumnType.FLOAT || type == ColumnType.DOUBLE)) {
+            appendDouble(value);
+        } else {
+            add(value);
+        }
+    }
+
+    /**
+     * This method appends a decimal number without boxing it, if the column keeps its values as decimal numbers.
+     *
+     * @param value the value to be appended
+     */
+    void addDouble(double value) {
+        if (type == null) {
+            initialize(ColumnType.DOUBLE);
+        }
+        if (type == ColumnType.DOUBLE || (attributeType != null && type == ColumnType.FLOAT)) {
+            appendDouble(value);
+        } else {
+            add(value);
+        }
+    }
+
+    /**
+     * This method appends a value of another column, copying numeric values without boxing them.
+     *
+     * @param source the column of the value
+     * @param index  the index of the value in the source column
+     */
+    void addFrom(ReportEventColumn source, int index) {
+        if (source.type == null || source.nullValues.get(index)) {
+            addNull();
+            return;
+        }
+        if (type == null && source.type != ColumnType.OBJECT) {
+            // the column takes the type of the source, hence an int value is not widened to a long value.
+            initialize(source.type);
+        }
+        if (type == ColumnType.OBJECT || (type != source.type && attributeType == null)) {
+            add(source.get(index));
+            return;
+        }
+        switch (source.type) {
+            case INT:
+            case LONG:
+                if (type == source.type) {
+                    appendLong(source.longValues[index]);
+                } else {
+                    addLong(source.longValues[index]);
+                }
+                break;
+            case FLOAT:
+            case DOUBLE:
+                if (type == source.type) {
+                    appendDouble(source.doubleValues[index]);
+                } else {
+                    addDouble(source.doubleValues[index]);
+                }
+                break;
+            default:
+                add(source.get(index));
+                break;
+        }
+    }
+
+    private void appendLong(long value) {
+        ensureCapacity(size + 1);
+        longValues[size++] = value;
+    }
+
+    private void appendDouble(double value) {
+        ensureCapacity(size + 1);
+        doubleValues[size++] = value;
+    }
+
+    /**
+     * This method returns whether the column is for an int or a long attribute, so that the values decoded for it
+     * are decoded as whole numbers.
+     *
+     * @return true if the attribute type is int or long, false otherwise
+     */
+    boolean isIntegral() {
+        return attributeType == ColumnType.INT || attributeType == ColumnType.LONG;
+    }
+
+    /**
+     * This method returns whether the strings of the column are kept as codes of its dictionary.
+     *
+     * @return true if the strings are dictionary encoded, false otherwise
+     */
+    boolean isDictionaryEncoded() {
+        return type == ColumnType.STRING;
+    }
+
+    /**
+     * This method returns the dictionary code of a string of a dictionary encoded column.
+     *
+     * @param index the index of the value
+     * @return the code of the string, or -1 if the value is null
+     */
+    int getCode(int index) {
+        return nullValues.get(index) ? -1 : stringCodes[index];
+    }
+
+    /**
+     * This method returns the strings of a dictionary encoded column, indexed by their codes.
+     *
+     * @return the dictionary of the column
+     */
+    String[] getDictionary() {
+        return dictionary.toArray();
+    }
+
+    /**
+     * This method removes the values of the column, keeping its arrays to be reused. The dictionary is kept as well
+     * unless it has grown large, hence the strings which repeat across the reuses are not created again.
+     */
+    void clear() {
+        if (objectValues != null) {
+            Arrays.fill(objectValues, 0, Math.min(size, objectValues.length), null);
+        }
+        if (dictionary != null && dictionary.size() >= DICTIONARY_SAMPLE_SIZE) {
+            dictionary.clear();
+        }
+        nullValues.clear();
+        size = 0;
+        type = null;
+        if (attributeType != null) {
+            initialize(attributeType);
+        }
+    }
+
+    Object get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (type == null || nullValues.get(index)) {
+            return null;
+        }
+        switch (type) {
+            case INT:
+                return (int) longValues[index];
+            case LONG:
+                return longValues[index];
+            case FLOAT:
+                return (float) doubleValues[index];
+            case DOUBLE:
+                return doubleValues[index];
+            case STRING:
+                return dictionary.get(stringCodes[index]);
+            default:
+                return objectValues[index];
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static ColumnType getColumnType(Attribute.Type attributeType) {
+        if (attributeType == null) {
+            return null;
+        }
+        switch (attributeType) {
+            case INT:
+                return ColumnType.INT;
+            case LONG:
+                return ColumnType.LONG;
+            case FLOAT:
+                return ColumnType.FLOAT;
+            case DOUBLE:
+                return ColumnType.DOUBLE;
+            case STRING:
+                return ColumnType.STRING;
+            default:
+                // the type of a bool or an object attribute is taken from the values.
+                return null;
+        }
+    }
+
+    private static ColumnType getColumnType(Object value) {
+        if (value instanceof Double) {
+            return ColumnType.DOUBLE;
+        } else if (value instanceof String) {
+            return ColumnType.STRING;
+        } else if (value instanceof Long) {
+            return ColumnType.LONG;
+        } else if (value instanceof Integer) {
+            return ColumnType.INT;
+        } else if (value instanceof Float) {
+            return ColumnType.FLOAT;
+        }
+        return ColumnType.OBJECT;
+    }
+
+    private void initialize(ColumnType columnType) {
+        type = columnType;
+        // the arrays of a cleared column are reused, and are grown by ensureCapacity() when a value is added.
+        switch (type) {
+            case INT:
+            case LONG:
+                if (longValues == null) {
+                    longValues = new long[newCapacity()];
+                }
+                break;
+            case FLOAT:
+            case DOUBLE:
+                if (doubleValues == null) {
+                    doubleValues = new double[newCapacity()];
+                }
+                break;
+            case STRING:
+                if (stringCodes == null) {
+                    stringCodes = new int[newCapacity()];
+                    dictionary = new ReportStringDictionary();
+                }
+                break;
+            default:
+                if (objectValues == null) {
+                    objectValues = new Object[newCapacity()];
+                }
+                break;
+        }
+    }
+
+    private int newCapacity() {
+        return Math.max(INITIAL_CAPACITY, size + 1);
+    }
+
+    private void convertToObjects() {
+        Object[] values = new Object[newCapacity()];
+        for (int i = 0; i < size; i++) {
+            values[i] = get(i);
+        }
+        type = ColumnType.OBJECT;
+        objectValues = values;
+        longValues = null;
+        doubleValues = null;
+        stringCodes = null;
+        dictionary = null;
+    }
+
+    private void ensureCapacity(int capacity) {
+        switch (type) {
+            case INT:
+            case LONG:
+                if (longValues.length < capacity) {
+                    longValues = Arrays.copyOf(longValues, newCapacity(longValues.length, capacity));
+                }
+                break;
+            case FLOAT:
+            case DOUBLE:
+                if (doubleValues.length < capacity) {
+                    doubleValues = Arrays.copyOf(doubleValues, newCapacity(doubleValues.length, capacity));
+                }
+                break;
+            case STRING:
+                if (stringCodes.length < capacity) {
+                    stringCodes = Arrays.copyOf(stringCodes, newCapacity(stringCodes.length, capacity));
+                }
+                break;
+            default:
+                if (objectValues.length < capacity) {
+                    objectValues = Arrays.copyOf(objectValues, newCapacity(objectValues.length, capacity));
+                }
+                break;
+        }
+    }
+
+    private static int newCapacity(int currentCapacity, int minCapacity) {
+        return Math.max(currentCapacity + (currentCapacity >> 1), minCapacity);
+    }
+
+    private int encode(String value) {
+        return dictionary.encode(value);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.extension.siddhi.io.report.util;
+
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRRewindableDataSource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * This class provides a JasperReports data source over the events of a report event buffer. The attribute values of
+ * an event are read when the data source moves to the event, hence an event spilled to the disk is decoded once.
+ */
+public class ReportEventDataSource implements JRRewindableDataSource {
+    private final ReportEventBuffer buffer;
+    private final int size;
+    private final Object[] row;
+    private int rowIndex = -1;
+
+    public ReportEventDataSource(ReportEventBuffer buffer) {
+        this.buffer = buffer;
+        this.size = buffer.size();
+        this.row = new Object[buffer.getColumnNames().length];
+    }
+
+    @Override
+    public boolean next() {
+        rowIndex++;
+        if (rowIndex < size) {
+            buffer.readRow(rowIndex, row);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Object getFieldValue(JRField jrField) {
+        int columnIndex = buffer.getColumnIndex(jrField.getName());
+        if (columnIndex < 0) {
+            return null;
+        }
+        return coerce(row[columnIndex], jrField.getValueClass());
+    }
+
+    /**
+     * This method converts a numeric value to the numeric type of the report field, since the type of the buffered
+     * value depends on the mapper (e.g., a JSON number is decoded as a double, while a passThrough event keeps the
+     * type of the stream attribute).
+     *
+     * @param value      the buffered value
+     * @param valueClass the value class of the report field
+     * @return the value converted to the value class if both are numeric, the value as it is otherwise
+     */
+    static Object coerce(Object value, Class<?> valueClass) {
+        if (!(value instanceof Number) || valueClass == null || valueClass.isInstance(value)) {
+            return value;
+        }
+        Number number = (Number) value;
+        if (valueClass == Double.class) {
+            return number.doubleValue();
+        } else if (valueClass == Float.class) {
+            return number.floatValue();
+        } else if (valueClass == Long.class) {
+            return number.longValue();
+        } else if (valueClass == Integer.class) {
+            return number.intValue();
+        } else if (valueClass == Short.class) {
+            return number.shortValue();
+        } else if (valueClass == Byte.class) {
+            return number.byteValue();
+        } else if (valueClass == BigDecimal.class) {
+            return new BigDecimal(number.toString());
+        } else if (valueClass == BigInteger.class) {
+            return BigInteger.valueOf(number.longValue());
+        } else if (valueClass == String.class) {
+            return ReportEventBuffer.formatValue(value);
+        }
+        return value;
+    }
+
+    @Override
+    public void moveFirst() {
+        rowIndex = -1;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.extension.siddhi.io.report.util;
+
+import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class holds report events spilled from the heap to a memory mapped file. The events are written once in the
+ * format of {@link ReportEventCodec} and read back through the mapping, hence they are paged in from the disk when
+ * they are rendered instead of being kept in the heap. The strings of a dictionary encoded column are written as their
+ * codes and the dictionary is kept in the heap, hence a repeated string is read back as the same instance. The file
+ * is deleted as soon as it is mapped, and its space is released when the mapping is garbage collected.
+ */
+class ReportEventSegment {
+    private static final Logger LOGGER = Logger.getLogger(ReportEventSegment.class);
+    private static final String FILE_PREFIX = "siddhi-report-";
+    private static final String FILE_SUFFIX = ".events";
+    private final MappedByteBuffer mappedEvents;
+    private final int[] rowOffsets;
+    private final String[][] dictionaries;
+
+    private ReportEventSegment(MappedByteBuffer mappedEvents, int[] rowOffsets, String[][] dictionaries) {
+        this.mappedEvents = mappedEvents;
+        this.rowOffsets = rowOffsets;
+        this.dictionaries = dictionaries;
+    }
+
+    /**
+     * This method writes the events in the given columns to a new segment file in the directory.
+     *
+     * @param directory the directory of the segment files
+     * @param columns   the columns of the events
+     * @param rowCount  the number of events in the columns
+     * @return the segment of the events
+     */
+    static ReportEventSegment write(Path directory, ReportEventColumn[] columns, int rowCount) {
+        Path segmentFile = null;
+        try {
+            segmentFile = Files.createTempFile(directory, FILE_PREFIX, FILE_SUFFIX);
+            int[] rowOffsets = new int[rowCount];
+            String[][] dictionaries = new String[columns.length][];
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i].isDictionaryEncoded()) {
+                    dictionaries[i] = columns[i].getDictionary();
+                }
+            }
+            long segmentSize;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(segmentFile)))) {
+                for (int i = 0; i < rowCount; i++) {
+                    rowOffsets[i] = out.size();
+                    for (int j = 0; j < columns.length; j++) {
+                        int code = dictionaries[j] == null ? -1 : columns[j].getCode(i);
+                        if (code >= 0) {
+                            ReportEventCodec.writeStringCode(out, code);
+                        } else {
+                            ReportEventCodec.writeValue(out, columns[j].get(i));
+                        }
+                    }
+                    if (out.size() == Integer.MAX_VALUE) {
+                        // the byte count of the stream stops at 2 GB, which is the most that can be mapped at once.
+                        throw new IOException("Segment exceeds the maximum size of " + Integer.MAX_VALUE + " bytes.");
+                    }
+                }
+                segmentSize = out.size();
+            }
+            MappedByteBuffer mappedEvents;
+            try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+                mappedEvents = channel.map(FileChannel.MapMode.READ_ONLY, 0, segmentSize);
+            }
+            deleteFile(segmentFile);
+            return new ReportEventSegment(mappedEvents, rowOffsets, dictionaries);
+        } catch (IOException e) {
+            if (segmentFile != null) {
+                deleteFile(segmentFile);
+            }
+            throw new SiddhiAppRuntimeException("Failed to spill " + rowCount + " report event(s) to " + directory +
+                    ".", e);
+        }
+    }
+
+    private static void deleteFile(Path segmentFile) {
+        try {
+            Files.deleteIfExists(segmentFile);
+        } catch (IOException e) {
+            // some platforms do not allow deleting a mapped file, hence it is deleted when the JVM exits.
+            segmentFile.toFile().deleteOnExit();
+            LOGGER.debug("Failed to delete the report event segment " + segmentFile + ". It is deleted on exit.");
+        }
+    }
+
+    int size() {
+        return rowOffsets.length;
+    }
+
+    /**
+     * This method decodes an event of the segment.
+     *
+     * @param rowIndex the index of the event in the segment
+     * @param row      the array to which the attribute values are decoded
+     */
+    void readRow(int rowIndex, Object[] row) {
+        ByteBuffer events = position(rowIndex);
+        for (int i = 0; i < dictionaries.length; i++) {
+            row[i] = ReportEventCodec.readValue(events, dictionaries[i]);
+        }
+    }
+
+    Object getValue(int rowIndex, int columnIndex) {
+        ByteBuffer events = position(rowIndex);
+        for (int i = 0; i < columnIndex; i++) {
+            ReportEventCodec.skipValue(events);
+        }
+        return ReportEventCodec.readValue(events, dictionaries[columnIndex]);
+    }
+
+    private ByteBuffer position(int rowIndex) {
+        // a duplicate has a position of its own, hence the segment can be read by several threads.
+        ByteBuffer events = mappedEvents.duplicate();
+        events.position(rowOffsets[rowIndex]);
+        return events;
+    }
+}
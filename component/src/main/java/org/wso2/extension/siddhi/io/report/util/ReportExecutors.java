@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.extension.siddhi.io.report.util;
+
+import org.apache.log4j.Logger;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class creates the executors which run the report jobs. Virtual threads are used when the executor type is
+ * virtual and the JVM supports them (JDK 21 or later). They are looked up reflectively as the extension is built
+ * for Java 8, and a fixed pool of platform threads is used on older JVMs.
+ */
+public class ReportExecutors {
+    private static final Logger LOGGER = Logger.getLogger(ReportExecutors.class);
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        Method newThreadPerTaskExecutor = null;
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            builderName = builderClass.getMethod("name", String.class, long.class);
+            builderFactory = builderClass.getMethod("factory");
+            newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            // virtual threads are a preview feature in JDK 19 and 20, where creating one fails unless enabled.
+            ofVirtual.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            ofVirtual = null;
+            LOGGER.debug("Virtual threads are not supported by the JVM.");
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * This method creates a thread factory for the report jobs. The threads are named with the given prefix.
+     *
+     * @param namePrefix   the prefix of the thread names
+     * @param executorType the type of the threads to be created
+     * @return a factory of virtual threads if they are requested and supported, a factory of daemon platform threads
+     * otherwise
+     */
+    public static ThreadFactory newThreadFactory(String namePrefix, ReportConstants.ExecutorTypes executorType) {
+        if (executorType == ReportConstants.ExecutorTypes.VIRTUAL && isVirtualThreadSupported()) {
+            try {
+                Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 1L);
+                return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                LOGGER.warn("Failed to create virtual threads for '" + namePrefix + "'. Platform threads are used " +
+                        "instead.", e);
+            }
+        }
+        return new PlatformThreadFactory(namePrefix);
+    }
+
+    /**
+     * This method creates an executor for the report jobs. A virtual thread executor starts a new virtual thread for
+     * each task, while a fixed executor runs the tasks on the given number of platform threads.
+     *
+     * @param namePrefix   the prefix of the thread names
+     * @param threadCount  the number of threads of a fixed executor
+     * @param executorType the type of the executor
+     * @return the executor
+     */
+    public static ExecutorService newExecutor(String namePrefix, int threadCount,
+                                              ReportConstants.ExecutorTypes executorType) {
+        if (executorType == ReportConstants.ExecutorTypes.VIRTUAL && isVirtualThreadSupported()) {
+            try {
+                return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null,
+                        newThreadFactory(namePrefix, executorType));
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                LOGGER.warn("Failed to create a virtual thread executor for '" + namePrefix + "'. A fixed pool of " +
+                        threadCount + " thread(s) is used instead.", e);
+            }
+        }
+        return Executors.newFixedThreadPool(threadCount, new PlatformThreadFactory(namePrefix));
+    }
+
+    /**
+     * Thread factory for the daemon platform threads running the report jobs.
+     */
+    private static class PlatformThreadFactory implements ThreadFactory {
+        private final String namePrefix;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        PlatformThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
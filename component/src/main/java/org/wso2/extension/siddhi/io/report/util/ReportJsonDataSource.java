@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.extension.siddhi.io.report.util;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRField;
+
+import java.util.Map;
+
+/**
+ * This class provides a JasperReports data source over the raw JSON payload of the sink. An event is decoded only
+ * when the data source moves to it, hence the events of the payload are not held in the heap while the report is
+ * filled. The payload is read once, hence the data source can not be rewound. A report whose layout may read its
+ * data more than once, i.e. which has subreports, crosstabs or datasets, is filled from the events decoded into a
+ * {@link ReportEventBuffer} instead.
+ */
+public class ReportJsonDataSource implements JRDataSource {
+    private final Map<String, Integer> columnIndexes;
+    private final Object[] row;
+    private final ReportJsonDecoder.RowReader rowReader;
+
+    /**
+     * Creates a data source over the events of a payload. The row into which the events are decoded is reused for
+     * all the events of the payload, and the numbers are decoded into the attribute types of the columns.
+     *
+     * @param payload      the JSON payload
+     * @param columnSchema the columns of the report, which are shared by the reports of the sink
+     */
+    public ReportJsonDataSource(String payload, ReportColumnSchema columnSchema) {
+        this.columnIndexes = columnSchema.getColumnIndexes();
+        this.row = new Object[columnIndexes.size()];
+        this.rowReader = ReportJsonDecoder.newRowReader(payload, columnIndexes, columnSchema.getColumnTypes(), row);
+    }
+
+    @Override
+    public boolean next() {
+        return rowReader.next();
+    }
+
+    @Override
+    public Object getFieldValue(JRField jrField) {
+        Integer columnIndex = columnIndexes.get(jrField.getName());
+        if (columnIndex == null) {
+            return null;
+        }
+        return ReportEventDataSource.coerce(row[columnIndex], jrField.getValueClass());
+    }
+}
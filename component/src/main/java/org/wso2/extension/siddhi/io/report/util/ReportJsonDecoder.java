@@ -0,0 +1,391 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.extension.siddhi.io.report.util;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
+import org.wso2.siddhi.query.api.definition.Attribute;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class decodes the JSON payloads of the json mapper, which are either a single event such as
+ * {"event":{"symbol":"WSO2","price":55.6}} or an array of such events. The payload is read once with a streaming
+ * reader and the attribute values are written directly into the event rows, without building a JSON tree. Numbers
+ * are decoded as doubles, as done by Gson, unless they are decoded into the columns of int or long attributes, or
+ * into the rows of columns whose attribute types are known.
+ * Decoding is not free of allocation: a reader is created for each payload, the reader creates a string for each
+ * attribute name and string value, the values of the rows and maps are boxed, and a nested object or array value is
+ * parsed into a tree before it is kept as its JSON text.
+ */
+public class ReportJsonDecoder {
+    private static final String EVENT = "event";
+
+    /**
+     * This method decodes the events of a payload into the given columns, appending a value to each column for each
+     * event. The numbers of the int and long columns are decoded as whole numbers and the other numbers as doubles,
+     * without boxing them. The attributes which are not columns are skipped, and a column which is not an attribute
+     * of an event gets a null value.
+     *
+     * @param payload       the JSON payload
+     * @param columnIndexes the index of each column by name
+     * @param columns       the columns to which the events are decoded
+     * @return the number of decoded events
+     */
+    static int decodeColumns(String payload, Map<String, Integer> columnIndexes, ReportEventColumn[] columns) {
+        ColumnDecoder columnDecoder = new ColumnDecoder(columnIndexes, columns);
+        EventCursor<ReportEventColumn[]> cursor = new EventCursor<>(payload, columnDecoder);
+        while (cursor.next() != null) {
+            // the values are appended to the columns while the events are read.
+        }
+        return columnDecoder.eventCount;
+    }
+
+    /**
+     * This method decodes the events of a payload into maps of attribute values, keeping the order of the
+     * attributes in the payload.
+     *
+     * @param payload the JSON payload
+     * @return the decoded events
+     */
+    public static List<Map<String, Object>> decodeMaps(String payload) {
+        return decode(payload, new MapDecoder());
+    }
+
+    /**
+     * This method decodes the first event of a payload into a map of attribute values, without decoding the other
+     * events.
+     *
+     * @param payload the JSON payload
+     * @return the first event, or null if the payload has no events
+     */
+    public static Map<String, Object> decodeFirstMap(String payload) {
+        return new EventCursor<>(payload, new MapDecoder()).next();
+    }
+
+    /**
+     * This method creates a reader which decodes the events of a payload one at a time, into the given row. The
+     * payload is decoded while it is read, hence only one event is decoded at any time. The numbers of the int and
+     * long columns are decoded as whole numbers, so that a long above 2^53 is not rounded, and each number is boxed
+     * once into the type of its column.
+     *
+     * @param payload       the JSON payload
+     * @param columnIndexes the index of each column by name
+     * @param columnTypes   the attribute type of each column, in the order of the columns
+     * @param row           the array to which the attribute values of each event are decoded
+     * @return the reader of the events
+     */
+    public static RowReader newRowReader(String payload, Map<String, Integer> columnIndexes,
+                                         Attribute.Type[] columnTypes, Object[] row) {
+        return new RowReader(payload, columnIndexes, columnTypes, row);
+    }
+
+    private static <T> List<T> decode(String payload, EventDecoder<T> eventDecoder) {
+        List<T> events = new ArrayList<>();
+        EventCursor<T> cursor = new EventCursor<>(payload, eventDecoder);
+        for (T event = cursor.next(); event != null; event = cursor.next()) {
+            events.add(event);
+        }
+        return events;
+    }
+
+    private static SiddhiAppRuntimeException decodingFailed(Exception e) {
+        return new SiddhiAppRuntimeException("Failed to decode the JSON payload of the report sink. Expected a " +
+                "payload such as {\"event\":{...}} or an array of them.", e);
+    }
+
+    private static <T> T readEventWrapper(JsonReader reader, EventDecoder<T> eventDecoder) throws IOException {
+        T event = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (EVENT.equals(reader.nextName())) {
+                event = readEvent(reader, eventDecoder);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return event;
+    }
+
+    private static <T> T readEvent(JsonReader reader, EventDecoder<T> eventDecoder) throws IOException {
+        T event = eventDecoder.newEvent();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (eventDecoder.isAttribute(name)) {
+                eventDecoder.readValue(reader, event, name);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        eventDecoder.endEvent(event);
+        return event;
+    }
+
+    private static Object readValue(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case NUMBER:
+                return reader.nextDouble();
+            case STRING:
+                return reader.nextString();
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case NULL:
+                reader.nextNull();
+                return null;
+            default:
+                // nested objects and arrays are kept as their JSON text.
+                return new JsonParser().parse(reader).toString();
+        }
+    }
+
+    private static Object readValue(JsonReader reader, Attribute.Type type) throws IOException {
+        if (reader.peek() != JsonToken.NUMBER) {
+            return readValue(reader);
+        }
+        switch (type) {
+            case INT:
+            case LONG:
+                long value;
+                try {
+                    value = reader.nextLong();
+                } catch (NumberFormatException e) {
+                    // the number has a fraction or is out of range, and is kept as a double by the reader.
+                    return reader.nextDouble();
+                }
+                if (type == Attribute.Type.INT && (int) value == value) {
+                    return (int) value;
+                }
+                return value;
+            case FLOAT:
+                return (float) reader.nextDouble();
+            default:
+                return reader.nextDouble();
+        }
+    }
+
+    /**
+     * Creates the events and reads their attribute values while a payload is decoded.
+     *
+     * @param <T> the type of the decoded events
+     */
+    private interface EventDecoder<T> {
+        T newEvent();
+
+        boolean isAttribute(String name);
+
+        void readValue(JsonReader reader, T event, String name) throws IOException;
+
+        default void endEvent(T event) {
+            // the events are complete once their attributes are read, unless the decoder tracks the missing ones.
+        }
+    }
+
+    /**
+     * Decodes the events into maps, keeping the order of the attributes in the payload. The attribute names and the
+     * string values which repeat within the payload share a single instance.
+     */
+    private static class MapDecoder implements EventDecoder<Map<String, Object>> {
+        private final Map<String, String> strings = new HashMap<>();
+
+        @Override
+        public Map<String, Object> newEvent() {
+            return new LinkedHashMap<>();
+        }
+
+        @Override
+        public boolean isAttribute(String name) {
+            return true;
+        }
+
+        @Override
+        public void readValue(JsonReader reader, Map<String, Object> event, String name) throws IOException {
+            Object value = ReportJsonDecoder.readValue(reader);
+            event.put(intern(name), value instanceof String ? intern((String) value) : value);
+        }
+
+        private String intern(String value) {
+            String instance = strings.putIfAbsent(value, value);
+            return instance == null ? value : instance;
+        }
+    }
+
+    /**
+     * Decodes the events into columns, appending the numbers of the columns as primitive values.
+     */
+    private static class ColumnDecoder implements EventDecoder<ReportEventColumn[]> {
+        private final Map<String, Integer> columnIndexes;
+        private final ReportEventColumn[] columns;
+        private final boolean[] decodedColumns;
+        // the events are counted as they are completed, since a wrapper with more than one event is read as one.
+        private int eventCount;
+
+        ColumnDecoder(Map<String, Integer> columnIndexes, ReportEventColumn[] columns) {
+            this.columnIndexes = columnIndexes;
+            this.columns = columns;
+            this.decodedColumns = new boolean[columns.length];
+        }
+
+        @Override
+        public ReportEventColumn[] newEvent() {
+            return columns;
+        }
+
+        @Override
+        public boolean isAttribute(String name) {
+            Integer columnIndex = columnIndexes.get(name);
+            // a value is appended to a column once for an event, hence a repeated attribute keeps its first value.
+            return columnIndex != null && !decodedColumns[columnIndex];
+        }
+
+        @Override
+        public void readValue(JsonReader reader, ReportEventColumn[] event, String name) throws IOException {
+            int columnIndex = columnIndexes.get(name);
+            ReportEventColumn column = event[columnIndex];
+            decodedColumns[columnIndex] = true;
+            if (reader.peek() != JsonToken.NUMBER) {
+                column.add(ReportJsonDecoder.readValue(reader));
+            } else if (column.isIntegral()) {
+                readWholeNumber(reader, column);
+            } else {
+                column.addDouble(reader.nextDouble());
+            }
+        }
+
+        private static void readWholeNumber(JsonReader reader, ReportEventColumn column) throws IOException {
+            long value;
+            try {
+                value = reader.nextLong();
+            } catch (NumberFormatException e) {
+                // the number has a fraction or is out of range, and is kept as a double by the reader.
+                column.addDouble(reader.nextDouble());
+                return;
+            }
+            column.addLong(value);
+        }
+
+        @Override
+        public void endEvent(ReportEventColumn[] event) {
+            for (int i = 0; i < event.length; i++) {
+                if (!decodedColumns[i]) {
+                    event[i].addNull();
+                }
+                decodedColumns[i] = false;
+            }
+            eventCount++;
+        }
+    }
+
+    /**
+     * Walks the events of a payload, decoding an event only when the next event is requested.
+     *
+     * @param <T> the type of the decoded events
+     */
+    private static class EventCursor<T> {
+        private final JsonReader reader;
+        private final EventDecoder<T> eventDecoder;
+        private boolean eventArray;
+        private boolean completed;
+
+        EventCursor(String payload, EventDecoder<T> eventDecoder) {
+            this.reader = new JsonReader(new StringReader(payload));
+            this.eventDecoder = eventDecoder;
+            try {
+                eventArray = reader.peek() == JsonToken.BEGIN_ARRAY;
+                if (eventArray) {
+                    reader.beginArray();
+                }
+            } catch (IOException | IllegalStateException | JsonParseException e) {
+                throw decodingFailed(e);
+            }
+        }
+
+        T next() {
+            try {
+                while (!completed) {
+                    if (eventArray && !reader.hasNext()) {
+                        reader.endArray();
+                        completed = true;
+                        break;
+                    }
+                    T event = readEventWrapper(reader, eventDecoder);
+                    completed = !eventArray;
+                    if (event != null) {
+                        return event;
+                    }
+                }
+                return null;
+            } catch (IOException | IllegalStateException | JsonParseException e) {
+                completed = true;
+                throw decodingFailed(e);
+            }
+        }
+    }
+
+    /**
+     * Reads the events of a payload one at a time into a row of attribute values ordered by the columns. The
+     * attributes which are not columns are skipped.
+     */
+    public static class RowReader {
+        private final EventCursor<Object[]> cursor;
+
+        private RowReader(String payload, Map<String, Integer> columnIndexes, Attribute.Type[] columnTypes,
+                          Object[] row) {
+            this.cursor = new EventCursor<>(payload, new EventDecoder<Object[]>() {
+                @Override
+                public Object[] newEvent() {
+                    Arrays.fill(row, null);
+                    return row;
+                }
+
+                @Override
+                public boolean isAttribute(String name) {
+                    return columnIndexes.containsKey(name);
+                }
+
+                @Override
+                public void readValue(JsonReader reader, Object[] event, String name) throws IOException {
+                    int columnIndex = columnIndexes.get(name);
+                    event[columnIndex] = ReportJsonDecoder.readValue(reader, columnTypes[columnIndex]);
+                }
+            });
+        }
+
+        /**
+         * This method decodes the next event of the payload into the row.
+         *
+         * @return true if an event is decoded, false if there are no more events
+         */
+        public boolean next() {
+            return cursor.next() != null;
+        }
+    }
+}
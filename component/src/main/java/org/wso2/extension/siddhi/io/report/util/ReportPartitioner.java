@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.extension.siddhi.io.report.util;
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
+
+/**
+ * This class routes the events of a batch into a separate report per value of the dynamic attribute in the output
+ * path (e.g., '/reports/{symbol}.pdf') and renders the reports in parallel on a fork-join pool.
+ */
+public class ReportPartitioner {
+    private static final Logger LOGGER = Logger.getLogger(ReportPartitioner.class);
+    private final String partitionAttribute;
+    private final String outputPath;
+    private final ForkJoinPool partitionPool;
+
+    public ReportPartitioner(String partitionAttribute, String outputPath, int parallelism) {
+        this.partitionAttribute = partitionAttribute;
+        this.outputPath = outputPath;
+        this.partitionPool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * This method renders a report for each partition of the batch and waits until all of them are saved.
+     *
+     * @param batch    the batch of events
+     * @param renderer the function rendering a partition of events to the given output path
+     */
+    public void render(ReportEventBuffer batch, BiConsumer<ReportEventBuffer, String> renderer) {
+        Map<String, ReportEventBuffer> partitions = partition(batch);
+        if (partitions.size() == 1) {
+            Map.Entry<String, ReportEventBuffer> partition = partitions.entrySet().iterator().next();
+            renderer.accept(partition.getValue(), partition.getKey());
+            return;
+        }
+        List<ForkJoinTask<?>> renders = new ArrayList<>(partitions.size());
+        partitions.forEach((partitionOutputPath, partition) -> renders.add(partitionPool.submit(() ->
+                renderer.accept(partition, partitionOutputPath))));
+        RuntimeException failure = null;
+        for (ForkJoinTask<?> render : renders) {
+            try {
+                render.join();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    LOGGER.error("Failed to render the partitioned report.", e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * This method splits a batch into the events of each report.
+     *
+     * @param batch the batch of events
+     * @return the events of each report, keyed by the output path of the report
+     */
+    public Map<String, ReportEventBuffer> partition(ReportEventBuffer batch) {
+        Map<String, ReportEventBuffer> partitions = new LinkedHashMap<>();
+        batch.groupBy(partitionAttribute).forEach((key, partition) -> partitions.put(getOutputPath(key),
+                partition));
+        return partitions;
+    }
+
+    public String getOutputPath(String partitionKey) {
+        return DynamicDataProvider.resolveDynamicValue(outputPath, partitionKey);
+    }
+
+    public void shutdown() {
+        partitionPool.shutdown();
+    }
+}
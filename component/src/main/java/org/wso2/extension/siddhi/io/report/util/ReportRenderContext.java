@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.extension.siddhi.io.report.util;
+
+import net.sf.jasperreports.engine.JRDataSource;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class holds the values resolved for a single report render, such as the output path with its dynamic value
+ * replaced. A context is created for each render and is never modified, hence the report properties of the sink
+ * stay untouched and several reports can be rendered in parallel.
+ */
+public final class ReportRenderContext {
+    private final String outputPath;
+    private final String datasetName;
+    private final Map<String, Object> parameters;
+    private final JRDataSource dataSource;
+
+    /**
+     * Creates the context of a report render.
+     *
+     * @param outputPath  the resolved output path of the report, without the file extension
+     * @param datasetName the dataset the events are filled into, or null if the report has no such dataset
+     * @param parameters  the report parameters
+     * @param dataSource  the data source of the main report
+     */
+    public ReportRenderContext(String outputPath, String datasetName, Map<String, Object> parameters,
+                               JRDataSource dataSource) {
+        this.outputPath = outputPath;
+        this.datasetName = datasetName;
+        this.parameters = Collections.unmodifiableMap(new HashMap<>(parameters));
+        this.dataSource = dataSource;
+    }
+
+    public String getOutputPath() {
+        return outputPath;
+    }
+
+    public String getDatasetName() {
+        return datasetName;
+    }
+
+    /**
+     * This method returns the report parameters of the render.
+     *
+     * @return an unmodifiable map of the report parameters
+     */
+    public Map<String, Object> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * This method returns a modifiable copy of the report parameters. JasperReports and DynamicJasper add their own
+     * entries to the parameter map while filling a report, hence each fill is given a copy.
+     *
+     * @return a copy of the report parameters
+     */
+    public Map<String, Object> copyParameters() {
+        return new HashMap<>(parameters);
+    }
+
+    public JRDataSource getDataSource() {
+        return dataSource;
+    }
+}
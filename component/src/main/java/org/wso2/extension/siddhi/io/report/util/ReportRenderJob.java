@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.extension.siddhi.io.report.util;
+
+import java.util.Objects;
+
+/**
+ * This class represents a report render job queued in the report render pipeline. The payload of the job is either
+ * the payload published to the sink, a batch of events, or null for the jobs which only trigger a report. A job may
+ * have the output path of the report it renders, so that it can replace a pending job rendering to the same file.
+ */
+public class ReportRenderJob {
+    private final long queuedTime;
+    private final String outputPath;
+    private Object payload;
+    private boolean started;
+    private boolean superseded;
+
+    public ReportRenderJob(Object payload) {
+        this(payload, null);
+    }
+
+    public ReportRenderJob(Object payload, String outputPath) {
+        this.payload = payload;
+        this.outputPath = outputPath;
+        this.queuedTime = System.nanoTime();
+    }
+
+    public synchronized Object getPayload() {
+        return payload;
+    }
+
+    public String getOutputPath() {
+        return outputPath;
+    }
+
+    public long getQueuedTime() {
+        return queuedTime;
+    }
+
+    /**
+     * This method marks the job as started, after which no other job can be merged into it.
+     *
+     * @return false if the job is superseded by a later job and should not be rendered, true otherwise
+     */
+    synchronized boolean start() {
+        started = true;
+        return !superseded;
+    }
+
+    /**
+     * This method merges a job into this job if it is not started yet, so that the events of both jobs are rendered
+     * in a single report. Jobs which only trigger a report are merged by dropping the later job.
+     *
+     * @param job the job to be merged
+     * @return true if the job is merged, false otherwise
+     */
+    synchronized boolean merge(ReportRenderJob job) {
+        if (started || superseded || !Objects.equals(outputPath, job.outputPath)) {
+            return false;
+        }
+        if (payload == null && job.payload == null) {
+            return true;
+        }
+        if (payload instanceof ReportEventBuffer && job.payload instanceof ReportEventBuffer) {
+            ((ReportEventBuffer) payload).append((ReportEventBuffer) job.payload);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * This method marks the job as superseded by a later job rendering to the same output path, if the job is not
+     * started yet. As the later report overwrites the file, the job is not rendered. If the events should be kept,
+     * they are moved to the beginning of the later job, which must not be queued yet.
+     *
+     * @param job        the later job
+     * @param keepEvents whether the events of this job are to be rendered with the later job
+     * @return true if the job is superseded, false if it has already started
+     */
+    synchronized boolean supersede(ReportRenderJob job, boolean keepEvents) {
+        if (started || superseded) {
+            return false;
+        }
+        superseded = true;
+        if (keepEvents && payload instanceof ReportEventBuffer && job.payload instanceof ReportEventBuffer) {
+            ((ReportEventBuffer) payload).append((ReportEventBuffer) job.payload);
+            job.payload = payload;
+        }
+        return true;
+    }
+}
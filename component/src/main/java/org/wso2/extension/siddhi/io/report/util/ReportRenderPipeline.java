@@ -0,0 +1,396 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.extension.siddhi.io.report.util;
+
+import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * This class provides a bounded queue of report render jobs which are executed by a pool of worker threads, so
+ * that the thread publishing to the report sink does not block on report generation. When the queue is full, the
+ * jobs are handled according to the configured overload policy. With the virtual executor, each job is dispatched
+ * from the queue to a virtual thread of its own instead, hence the number of reports rendered at the same time is
+ * only limited by the fill permits of the report generator.
+ */
+public class ReportRenderPipeline {
+    private static final Logger LOGGER = Logger.getLogger(ReportRenderPipeline.class);
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final long POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(POLL_INTERVAL_MILLIS);
+    private final String name;
+    private final int workerCount;
+    private final ReportConstants.ExecutorTypes executorType;
+    private final ReportConstants.OverloadPolicies overloadPolicy;
+    private final Consumer<ReportRenderJob> renderer;
+    private final BlockingDeque<ReportRenderJob> jobQueue;
+    // the dispatched jobs which are not rendered yet, which are bounded by the queue size as well.
+    private final Semaphore dispatchPermits;
+    private final AtomicLong completedJobs = new AtomicLong();
+    private final AtomicLong failedJobs = new AtomicLong();
+    private final AtomicLong droppedJobs = new AtomicLong();
+    private final AtomicLong coalescedJobs = new AtomicLong();
+    private final AtomicLong supersededJobs = new AtomicLong();
+    private final AtomicInteger activeJobs = new AtomicInteger();
+    private final Map<String, ReportRenderJob> pendingJobs = new ConcurrentHashMap<>();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private volatile long lastLatencyNanos;
+    private volatile boolean running;
+    private ExecutorService workerPool;
+    private ExecutorService dispatcher;
+
+    public ReportRenderPipeline(String name, int queueSize, int workerCount, ReportConstants.ExecutorTypes executorType,
+                                ReportConstants.OverloadPolicies overloadPolicy, Consumer<ReportRenderJob> renderer) {
+        this.name = name;
+        this.workerCount = workerCount;
+        this.executorType = executorType;
+        this.overloadPolicy = overloadPolicy;
+        this.renderer = renderer;
+        this.jobQueue = new LinkedBlockingDeque<>(queueSize);
+        this.dispatchPermits = new Semaphore(queueSize);
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        String namePrefix = "siddhi-report-" + name + "-";
+        workerPool = ReportExecutors.newExecutor(namePrefix, workerCount, executorType);
+        if (executorType == ReportConstants.ExecutorTypes.VIRTUAL && ReportExecutors.isVirtualThreadSupported()) {
+            dispatcher = Executors.newSingleThreadExecutor(ReportExecutors.newThreadFactory(namePrefix +
+                    "dispatcher-", ReportConstants.ExecutorTypes.FIXED));
+            dispatcher.execute(this::runDispatcher);
+            LOGGER.debug("Started report render pipeline '" + name + "' with a virtual thread per render job.");
+            return;
+        }
+        for (int i = 0; i < workerCount; i++) {
+            workerPool.execute(this::runWorker);
+        }
+        LOGGER.debug("Started report render pipeline '" + name + "' with " + workerCount + " " +
+                executorType.name().toLowerCase(Locale.ENGLISH) + " worker(s).");
+    }
+
+    /**
+     * This method queues a render job and returns as soon as the job is accepted. If the queue is full the job is
+     * handled according to the overload policy of the pipeline.
+     *
+     * @param payload the payload to be rendered
+     */
+    public void submit(Object payload) {
+        submit(payload, null);
+    }
+
+    /**
+     * This method queues a render job for the given output path. A pending job rendering to the same output path is
+     * not rendered, as the new report would overwrite it. With the coalesce overload policy, the events of the
+     * pending job are rendered with the new job instead.
+     *
+     * @param payload    the payload to be rendered
+     * @param outputPath the resolved output path of the report, or null if it is not known
+     */
+    public void submit(Object payload, String outputPath) {
+        if (!running) {
+            throw new SiddhiAppRuntimeException("Report render pipeline '" + name + "' is not running.");
+        }
+        ReportRenderJob job = new ReportRenderJob(payload, outputPath);
+        if (outputPath != null) {
+            pendingJobs.compute(outputPath, (path, pendingJob) -> {
+                if (pendingJob != null && pendingJob.supersede(job,
+                        overloadPolicy == ReportConstants.OverloadPolicies.COALESCE)) {
+                    jobQueue.remove(pendingJob);
+                    supersededJobs.incrementAndGet();
+                    LOGGER.debug("Replaced the pending report render job of '" + path + "' in '" + name + "'.");
+                }
+                return job;
+            });
+        }
+        if (jobQueue.offerLast(job)) {
+            return;
+        }
+        switch (overloadPolicy) {
+            case DROP_NEWEST:
+                dropJob(job);
+                LOGGER.debug("Render queue of '" + name + "' is full. Dropped the latest report render job.");
+                break;
+            case DROP_OLDEST:
+                while (!jobQueue.offerLast(job)) {
+                    ReportRenderJob oldestJob = jobQueue.pollFirst();
+                    if (oldestJob != null) {
+                        dropJob(oldestJob);
+                        LOGGER.debug("Render queue of '" + name + "' is full. Dropped the oldest report render job.");
+                    }
+                }
+                break;
+            case COALESCE:
+                coalesce(job);
+                break;
+            default:
+                try {
+                    jobQueue.putLast(job);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SiddhiAppRuntimeException("Interrupted while queueing report render job in '" + name +
+                            "'.", e);
+                }
+                break;
+        }
+    }
+
+    private void coalesce(ReportRenderJob job) {
+        while (!jobQueue.offerLast(job)) {
+            ReportRenderJob lastJob = jobQueue.peekLast();
+            if (lastJob != null && lastJob.merge(job)) {
+                forgetJob(job);
+                coalescedJobs.incrementAndGet();
+                LOGGER.debug("Render queue of '" + name + "' is full. Coalesced the report render job into the " +
+                        "next render.");
+                return;
+            }
+            if (lastJob != null && lastJob == jobQueue.peekLast()) {
+                // the jobs cannot be merged, hence the job is dropped instead of blocking the publisher.
+                dropJob(job);
+                LOGGER.debug("Render queue of '" + name + "' is full. Dropped the report render job as it cannot " +
+                        "be coalesced.");
+                return;
+            }
+        }
+    }
+
+    private void dropJob(ReportRenderJob job) {
+        forgetJob(job);
+        droppedJobs.incrementAndGet();
+    }
+
+    private void forgetJob(ReportRenderJob job) {
+        if (job.getOutputPath() != null) {
+            pendingJobs.remove(job.getOutputPath(), job);
+        }
+    }
+
+    /**
+     * This method stops accepting new jobs and waits until all queued jobs are rendered.
+     */
+    public void drain() {
+        drain(Long.MAX_VALUE);
+    }
+
+    /**
+     * This method stops accepting new jobs and waits until the queued jobs are rendered, or until the given timeout
+     * elapses. The jobs which are not started by then are removed from the queue and returned, and the jobs which
+     * are still rendering are interrupted.
+     *
+     * @param timeoutMillis the maximum time to wait in milliseconds
+     * @return the jobs which are not rendered
+     */
+    public synchronized List<ReportRenderJob> drain(long timeoutMillis) {
+        if (!running) {
+            return Collections.emptyList();
+        }
+        running = false;
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        long startTime = System.nanoTime();
+        if (dispatcher != null) {
+            // the queued jobs are dispatched until the deadline, after which the jobs left in the queue are returned.
+            dispatcher.shutdown();
+            if (!awaitTermination(dispatcher, timeoutNanos, startTime)) {
+                dispatcher.shutdownNow();
+                awaitTermination(dispatcher, POLL_INTERVAL_NANOS, System.nanoTime());
+            }
+        }
+        workerPool.shutdown();
+        awaitTermination(workerPool, timeoutNanos, startTime);
+        List<ReportRenderJob> unrenderedJobs = new ArrayList<>();
+        jobQueue.drainTo(unrenderedJobs);
+        pendingJobs.clear();
+        if (!workerPool.isTerminated()) {
+            LOGGER.warn("Report render pipeline '" + name + "' did not drain within " +
+                    TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms. Interrupting " + activeJobs.get() +
+                    " report(s) still rendering.");
+            workerPool.shutdownNow();
+        }
+        LOGGER.info("Report render pipeline '" + name + "' drained. Rendered " + completedJobs.get() +
+                " report(s), " + failedJobs.get() + " failed, " + droppedJobs.get() + " dropped, " +
+                coalescedJobs.get() + " coalesced, " + supersededJobs.get() + " superseded, " +
+                unrenderedJobs.size() + " not rendered, average latency " + getAverageLatency() + " ms.");
+        return unrenderedJobs;
+    }
+
+    private boolean awaitTermination(ExecutorService executor, long timeoutNanos, long startTime) {
+        try {
+            long remainingNanos = timeoutNanos - (System.nanoTime() - startTime);
+            while (remainingNanos > 0 && !executor.awaitTermination(Math.min(remainingNanos, POLL_INTERVAL_NANOS),
+                    TimeUnit.NANOSECONDS)) {
+                remainingNanos = timeoutNanos - (System.nanoTime() - startTime);
+                LOGGER.debug("Waiting for " + jobQueue.size() + " queued report(s) in '" + name + "' to render.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return executor.isTerminated();
+    }
+
+    public synchronized void shutdown() {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.shutdownNow();
+        }
+        if (workerPool != null) {
+            workerPool.shutdownNow();
+        }
+        jobQueue.clear();
+        pendingJobs.clear();
+    }
+
+    private void runWorker() {
+        while (running || !jobQueue.isEmpty()) {
+            ReportRenderJob job;
+            try {
+                job = jobQueue.pollFirst(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (job != null) {
+                execute(job);
+            }
+        }
+    }
+
+    private void runDispatcher() {
+        while (running || !jobQueue.isEmpty()) {
+            ReportRenderJob job;
+            try {
+                dispatchPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                job = jobQueue.pollFirst(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                dispatchPermits.release();
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (job == null) {
+                dispatchPermits.release();
+                continue;
+            }
+            try {
+                workerPool.execute(() -> {
+                    try {
+                        execute(job);
+                    } finally {
+                        dispatchPermits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // the pipeline is shut down, hence the job is put back to be returned as not rendered.
+                dispatchPermits.release();
+                jobQueue.offerFirst(job);
+                return;
+            }
+        }
+    }
+
+    private void execute(ReportRenderJob job) {
+        forgetJob(job);
+        if (!job.start()) {
+            // the job is superseded after it is taken from the queue.
+            return;
+        }
+        activeJobs.incrementAndGet();
+        try {
+            renderer.accept(job);
+            completedJobs.incrementAndGet();
+        } catch (RuntimeException e) {
+            failedJobs.incrementAndGet();
+            LOGGER.error("Failed to render report in '" + name + "'.", e);
+        } finally {
+            activeJobs.decrementAndGet();
+            long latency = System.nanoTime() - job.getQueuedTime();
+            lastLatencyNanos = latency;
+            totalLatencyNanos.addAndGet(latency);
+            maxLatencyNanos.accumulateAndGet(latency, Math::max);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Report render job in '" + name + "' completed in " +
+                        TimeUnit.NANOSECONDS.toMillis(latency) + " ms. Queue depth: " + jobQueue.size());
+            }
+        }
+    }
+
+    public int getQueueDepth() {
+        return jobQueue.size();
+    }
+
+    public long getCompletedJobCount() {
+        return completedJobs.get();
+    }
+
+    public long getFailedJobCount() {
+        return failedJobs.get();
+    }
+
+    public long getDroppedJobCount() {
+        return droppedJobs.get();
+    }
+
+    public long getCoalescedJobCount() {
+        return coalescedJobs.get();
+    }
+
+    /**
+     * This method returns the number of renders saved as a later job rendered to the same output path.
+     *
+     * @return the number of superseded jobs
+     */
+    public long getSupersededJobCount() {
+        return supersededJobs.get();
+    }
+
+    public long getLastLatency() {
+        return TimeUnit.NANOSECONDS.toMillis(lastLatencyNanos);
+    }
+
+    public long getMaxLatency() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get());
+    }
+
+    public long getAverageLatency() {
+        long jobs = completedJobs.get() + failedJobs.get();
+        return jobs == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalLatencyNanos.get() / jobs);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.extension.siddhi.io.report.util;
+
+import org.apache.log4j.Logger;
+import org.wso2.extension.siddhi.io.report.generators.StaticReportGenerator;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * This class publishes the metrics of a report sink as an MBean of the platform MBean server, so that they can be
+ * read with any JMX client while the siddhi app runs. The MBean is named after the siddhi app and the stream of the
+ * sink, e.g. org.wso2.extension.siddhi.io.report:type=ReportSink,siddhiApp="App",stream="Stream",id=1, where the id
+ * tells apart the sinks of the same stream.
+ */
+public class ReportSinkMetrics implements ReportSinkMetricsMBean {
+    private static final Logger LOGGER = Logger.getLogger(ReportSinkMetrics.class);
+    private static final String DOMAIN = "org.wso2.extension.siddhi.io.report";
+    private static final AtomicLong SINK_IDS = new AtomicLong();
+    private final ObjectName objectName;
+    private final ReportRenderPipeline renderPipeline;
+    private final StaticReportGenerator staticReportGenerator;
+    private boolean registered;
+
+    /**
+     * Creates the metrics of a report sink.
+     *
+     * @param siddhiAppName         the name of the siddhi app of the sink
+     * @param streamId              the id of the stream of the sink
+     * @param renderPipeline        the render pipeline of the sink, or null if the reports are rendered on the
+     *                              publishing thread
+     * @param staticReportGenerator the generator of the external template of the sink, or null if the sink has no
+     *                              external template
+     */
+    public ReportSinkMetrics(String siddhiAppName, String streamId, ReportRenderPipeline renderPipeline,
+                             StaticReportGenerator staticReportGenerator) {
+        try {
+            this.objectName = new ObjectName(DOMAIN + ":type=ReportSink,siddhiApp=" + ObjectName.quote(siddhiAppName) +
+                    ",stream=" + ObjectName.quote(streamId) + ",id=" + SINK_IDS.incrementAndGet());
+        } catch (JMException e) {
+            // the quoted names are always valid in an object name.
+            throw new IllegalStateException(e);
+        }
+        this.renderPipeline = renderPipeline;
+        this.staticReportGenerator = staticReportGenerator;
+    }
+
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    /**
+     * This method registers the MBean of the metrics. A failure to register it is logged, as the reports are rendered
+     * without the metrics.
+     */
+    public synchronized void register() {
+        if (registered) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            registered = true;
+        } catch (JMException e) {
+            LOGGER.warn("Failed to register the metrics of the report sink as " + objectName + ".", e);
+        }
+    }
+
+    /**
+     * This method unregisters the MBean of the metrics, if it is registered.
+     */
+    public synchronized void unregister() {
+        if (!registered) {
+            return;
+        }
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            mBeanServer.unregisterMBean(objectName);
+        } catch (JMException e) {
+            LOGGER.warn("Failed to unregister the metrics of the report sink " + objectName + ".", e);
+        }
+        registered = false;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return renderPipeline == null ? 0 : renderPipeline.getQueueDepth();
+    }
+
+    @Override
+    public long getCompletedJobCount() {
+        return renderPipeline == null ? 0 : renderPipeline.getCompletedJobCount();
+    }
+
+    @Override
+    public long getFailedJobCount() {
+        return renderPipeline == null ? 0 : renderPipeline.getFailedJobCount();
+    }
+
+    @Override
+    public long getDroppedJobCount() {
+        return renderPipeline == null ? 0 : renderPipeline.getDroppedJobCount();
+    }
+
+    @Override
+    public long getCoalescedJobCount() {
+        return renderPipeline == null ? 0 : renderPipeline.getCoalescedJobCount();
+    }
+
+    @Override
+    public long getSupersededJobCount() {
+        return renderPipeline == null ? 0 : renderPipeline.getSupersededJobCount();
+    }
+
+    @Override
+    public long getLastLatency() {
+        return renderPipeline == null ? 0 : renderPipeline.getLastLatency();
+    }
+
+    @Override
+    public long getMaxLatency() {
+        return renderPipeline == null ? 0 : renderPipeline.getMaxLatency();
+    }
+
+    @Override
+    public long getAverageLatency() {
+        return renderPipeline == null ? 0 : renderPipeline.getAverageLatency();
+    }
+
+    @Override
+    public long getTemplateReloadCount() {
+        return staticReportGenerator == null ? 0 : staticReportGenerator.getTemplateReloadCount();
+    }
+
+    @Override
+    public long getFailedTemplateReloadCount() {
+        return staticReportGenerator == null ? 0 : staticReportGenerator.getFailedTemplateReloadCount();
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.extension.siddhi.io.report.util;
+
+/**
+ * The metrics of a report sink which are published through JMX while the sink is connected. The latencies are in
+ * milliseconds, from the time a render job is queued until it is rendered, and are 0 if the reports are rendered on
+ * the publishing thread. The dropped and coalesced jobs are counted by the overload policy of the render queue, and
+ * the superseded jobs are the ones replaced by a later job rendering to the same output path. The template reloads
+ * are counted for the sinks of an external template which is reloaded when it is changed.
+ */
+public interface ReportSinkMetricsMBean {
+    int getQueueDepth();
+
+    long getCompletedJobCount();
+
+    long getFailedJobCount();
+
+    long getDroppedJobCount();
+
+    long getCoalescedJobCount();
+
+    long getSupersededJobCount();
+
+    long getLastLatency();
+
+    long getMaxLatency();
+
+    long getAverageLatency();
+
+    long getTemplateReloadCount();
+
+    long getFailedTemplateReloadCount();
+}
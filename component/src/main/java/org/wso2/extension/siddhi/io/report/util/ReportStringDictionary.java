@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.extension.siddhi.io.report.util;
+
+import java.util.Arrays;
+
+/**
+ * This class assigns a code to each distinct string of a report event column. The codes are kept in an open
+ * addressing table keyed by the hash of the strings, which is cleared without being allocated again when the column
+ * is reused.
+ */
+class ReportStringDictionary {
+    private static final int INITIAL_CAPACITY = 16;
+    private String[] strings = new String[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    // the code of the string in each slot plus one, or 0 for an empty slot.
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+    private int size;
+
+    /**
+     * This method returns the code of a string, adding the string to the dictionary if it is not there.
+     *
+     * @param value the string
+     * @return the code of the string
+     */
+    int encode(String value) {
+        int hash = value.hashCode();
+        int code = find(value, hash);
+        return code >= 0 ? code : add(value, hash);
+    }
+
+    private int find(String value, int hash) {
+        int mask = slots.length - 1;
+        for (int slot = spread(hash) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int code = slots[slot] - 1;
+            if (hashes[code] == hash && strings[code].equals(value)) {
+                return code;
+            }
+        }
+        return -1;
+    }
+
+    private int add(String value, int hash) {
+        if (size == strings.length) {
+            strings = Arrays.copyOf(strings, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+            rehash(size * 4);
+        }
+        strings[size] = value;
+        hashes[size] = hash;
+        insert(size);
+        return size++;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        for (int code = 0; code < size; code++) {
+            insert(code);
+        }
+    }
+
+    private void insert(int code) {
+        int mask = slots.length - 1;
+        int slot = spread(hashes[code]) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = code + 1;
+    }
+
+    private static int spread(int hash) {
+        // the high bits are mixed into the low bits which select the slot, as done by HashMap.
+        return hash ^ (hash >>> 16);
+    }
+
+    String get(int code) {
+        return strings[code];
+    }
+
+    int size() {
+        return size;
+    }
+
+    String[] toArray() {
+        return Arrays.copyOf(strings, size);
+    }
+
+    /**
+     * This method removes the strings of the dictionary, keeping its tables to be reused.
+     */
+    void clear() {
+        Arrays.fill(strings, 0, size, null);
+        Arrays.fill(slots, 0);
+        size = 0;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.extension.siddhi.io.report.util;
+
+import net.sf.jasperreports.engine.JRConstants;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.engine.util.JRSaver;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+
+/**
+ * This class keeps the compiled report templates in a directory as .jasper files, so that a template is compiled only
+ * once across the deployments of the Siddhi apps and the restarts of the server. A compiled template is keyed by a
+ * hash of the JRXML content and the versions of JasperReports and Java, hence a changed template or an upgrade
+ * compiles the template again instead of loading a stale one. The cache is only an optimization, hence a file which
+ * can not be read or written is logged and the template is compiled as usual.
+ * <p>
+ * A compiled template is a serialized object, hence loading a file planted by another user would run the code of
+ * that user in the server. The directory is created to be only accessible by the user of the server, and a file is
+ * only loaded if both the file and the directory are owned by that user and are not writable by the other users.
+ */
+public class ReportTemplateCache {
+    private static final Logger LOGGER = Logger.getLogger(ReportTemplateCache.class);
+    private static final String FILE_SUFFIX = ".jasper";
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    private static final String KEY_ALGORITHM = "SHA-256";
+    private static final Set<PosixFilePermission> DIRECTORY_PERMISSIONS = PosixFilePermissions.fromString("rwx------");
+    private static final String COMPILER_VERSION = JRConstants.SERIAL_VERSION_UID + "/" +
+            JasperReport.class.getPackage().getImplementationVersion() + "/" +
+            System.getProperty("java.specification.version");
+    private final Path directory;
+
+    /**
+     * Creates a cache of the compiled templates in the given directory.
+     *
+     * @param directory the directory of the compiled templates
+     */
+    public ReportTemplateCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * This method computes the key of the compiled template of a JRXML content.
+     *
+     * @param jrxml the content of the template
+     * @return the key of the compiled template
+     */
+    public static String getKey(byte[] jrxml) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(KEY_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256.
+            throw new IllegalStateException(KEY_ALGORITHM + " is not supported by the platform.", e);
+        }
+        digest.update(COMPILER_VERSION.getBytes(StandardCharsets.UTF_8));
+        byte[] hash = digest.digest(jrxml);
+        StringBuilder key = new StringBuilder(hash.length * 2);
+        for (byte hashByte : hash) {
+            key.append(Character.forDigit((hashByte >> 4) & 0xF, 16)).append(Character.forDigit(hashByte & 0xF, 16));
+        }
+        return key.toString();
+    }
+
+    /**
+     * This method loads a compiled template from the cache.
+     *
+     * @param key the key of the compiled template
+     * @return the compiled template, or null if it is not in the cache
+     */
+    public JasperReport get(String key) {
+        Path reportFile = directory.resolve(key + FILE_SUFFIX);
+        if (!Files.isRegularFile(reportFile, LinkOption.NOFOLLOW_LINKS)) {
+            return null;
+        }
+        if (!isPrivate(directory) || !isPrivate(reportFile)) {
+            LOGGER.warn("The cached report template " + reportFile + " is not loaded as it or its directory is not " +
+                    "owned by the user of the server, or is writable by the other users. The template is compiled " +
+                    "instead.");
+            return null;
+        }
+        try {
+            Object report = JRLoader.loadObject(reportFile.toFile());
+            if (report instanceof JasperReport) {
+                return (JasperReport) report;
+            }
+            LOGGER.warn("The cached report template " + reportFile + " is not a compiled template. It is compiled " +
+                    "again.");
+        } catch (JRException | RuntimeException e) {
+            // a file of an incompatible or partially copied template is replaced by compiling the template again.
+            LOGGER.warn("Failed to load the cached report template " + reportFile + ". It is compiled again.", e);
+        }
+        deleteFile(reportFile);
+        return null;
+    }
+
+    /**
+     * This method saves a compiled template in the cache. The template is written to a temporary file which is then
+     * moved in place, hence a concurrent deployment never loads a partially written template.
+     *
+     * @param key    the key of the compiled template
+     * @param report the compiled template
+     */
+    public void put(String key, JasperReport report) {
+        Path temporaryFile = null;
+        try {
+            createDirectory();
+            if (!isPrivate(directory)) {
+                LOGGER.warn("The compiled report template " + report.getName() + " is not cached as " + directory +
+                        " is not owned by the user of the server, or is writable by the other users.");
+                return;
+            }
+            // the temporary files are only readable and writable by the user of the server.
+            temporaryFile = Files.createTempFile(directory, key, TEMPORARY_FILE_SUFFIX);
+            JRSaver.saveObject(report, temporaryFile.toFile());
+            Files.move(temporaryFile, directory.resolve(key + FILE_SUFFIX), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | JRException e) {
+            LOGGER.warn("Failed to cache the compiled report template " + report.getName() + " in " + directory +
+                    ".", e);
+            if (temporaryFile != null) {
+                deleteFile(temporaryFile);
+            }
+        }
+    }
+
+    private void createDirectory() throws IOException {
+        if (Files.exists(directory, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(DIRECTORY_PERMISSIONS));
+        } else {
+            Files.createDirectories(directory);
+        }
+    }
+
+    /**
+     * This method checks whether a file or a directory can only be changed by the user of the server, i.e. whether
+     * it is owned by that user, is not a symbolic link and is not writable by the group or the other users.
+     *
+     * @param path the file or the directory
+     * @return true if only the user of the server can change the path, false otherwise
+     */
+    public static boolean isPrivate(Path path) {
+        try {
+            UserPrincipal user = path.getFileSystem().getUserPrincipalLookupService()
+                    .lookupPrincipalByName(System.getProperty("user.name"));
+            if (Files.isSymbolicLink(path) || !user.equals(Files.getOwner(path, LinkOption.NOFOLLOW_LINKS))) {
+                return false;
+            }
+            PosixFileAttributeView attributeView = Files.getFileAttributeView(path, PosixFileAttributeView.class,
+                    LinkOption.NOFOLLOW_LINKS);
+            if (attributeView == null) {
+                return true;
+            }
+            Set<PosixFilePermission> permissions = attributeView.readAttributes().permissions();
+            return !permissions.contains(PosixFilePermission.GROUP_WRITE) &&
+                    !permissions.contains(PosixFilePermission.OTHERS_WRITE);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Failed to read the owner and the permissions of " + path + ".", e);
+            return false;
+        }
+    }
+
+    private static void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.debug("Failed to delete " + file + ".", e);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.extension.siddhi.io.report.util;
+
+import net.sf.jasperreports.engine.JasperReport;
+import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * This class shares the compiled report templates among the report sinks of all the Siddhi apps in the JVM. A
+ * template is compiled once while it is used by any sink, and the sinks which are deployed while it is being compiled
+ * wait for that compilation instead of compiling their own copy, hence the classes generated for the expressions of
+ * the template are loaded only once. A compiled template is kept until the last sink using it releases it.
+ */
+public class ReportTemplateRegistry {
+    private static final Logger LOGGER = Logger.getLogger(ReportTemplateRegistry.class);
+    private static final Map<String, RegisteredTemplate> TEMPLATES = new HashMap<>();
+
+    /**
+     * This method acquires the compiled template of the given key, compiling it if it is not used by another sink.
+     * Each acquisition must be released by {@link #release(String)} once the template is no longer used.
+     *
+     * @param key      the key of the template, as computed by {@link ReportTemplateCache#getKey(byte[])}
+     * @param compiler compiles the template if it is not registered
+     * @return the compiled template
+     */
+    public static JasperReport acquire(String key, Supplier<JasperReport> compiler) {
+        RegisteredTemplate registeredTemplate;
+        boolean compiling = false;
+        synchronized (TEMPLATES) {
+            registeredTemplate = TEMPLATES.get(key);
+            if (registeredTemplate == null) {
+                registeredTemplate = new RegisteredTemplate();
+                TEMPLATES.put(key, registeredTemplate);
+                compiling = true;
+            }
+            registeredTemplate.references++;
+        }
+        if (compiling) {
+            // the template is compiled outside the lock, hence the other templates are not blocked by it.
+            try {
+                registeredTemplate.report.complete(compiler.get());
+            } catch (RuntimeException | Error e) {
+                // a failed template is removed with the acquisitions waiting for it, so that it is compiled again
+                // when the next sink is deployed.
+                synchronized (TEMPLATES) {
+                    TEMPLATES.remove(key, registeredTemplate);
+                }
+                registeredTemplate.report.completeExceptionally(e);
+                throw e;
+            }
+            LOGGER.debug("Registered the compiled report template " + key + ".");
+        }
+        try {
+            return registeredTemplate.report.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new SiddhiAppRuntimeException("Failed to compile the report template " + key + ".", e.getCause());
+        }
+    }
+
+    /**
+     * This method releases an acquisition of a compiled template. The template is removed from the registry once it
+     * has no acquisitions.
+     *
+     * @param key the key of the template
+     */
+    public static void release(String key) {
+        synchronized (TEMPLATES) {
+            RegisteredTemplate registeredTemplate = TEMPLATES.get(key);
+            if (registeredTemplate != null && --registeredTemplate.references == 0) {
+                TEMPLATES.remove(key);
+                LOGGER.debug("Removed the compiled report template " + key + " as it is no longer used.");
+            }
+        }
+    }
+
+    /**
+     * A compiled template and the number of its acquisitions. The template is completed once it is compiled.
+     */
+    private static class RegisteredTemplate {
+        private final CompletableFuture<JasperReport> report = new CompletableFuture<>();
+        private int references;
+    }
+}
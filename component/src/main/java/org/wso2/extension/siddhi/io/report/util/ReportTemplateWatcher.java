@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.extension.siddhi.io.report.util;
+
+import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class watches a report template file and calls the given reloader when the file is changed, so that the
+ * template is compiled again in the background without redeploying the Siddhi app. The directory of the file is
+ * watched, hence a template which is replaced by moving a new file over it (as done by many editors) is reloaded as
+ * well. The reloader is called once the file has not changed for a short while, so that a file which is being written
+ * is not compiled before it is complete.
+ */
+public class ReportTemplateWatcher {
+    private static final Logger LOGGER = Logger.getLogger(ReportTemplateWatcher.class);
+    private static final long QUIET_PERIOD_MILLIS = 200;
+    private final String name;
+    private final Path templateFile;
+    private final Runnable reloader;
+    private WatchService watchService;
+    private ExecutorService watcherThread;
+
+    /**
+     * Creates a watcher of a template file.
+     *
+     * @param name         the name of the watcher thread
+     * @param templateFile the template file to be watched
+     * @param reloader     reloads the template when the file is changed
+     */
+    public ReportTemplateWatcher(String name, Path templateFile, Runnable reloader) {
+        this.name = name;
+        this.templateFile = templateFile.toAbsolutePath().normalize();
+        this.reloader = reloader;
+    }
+
+    public synchronized void start() {
+        if (watchService != null) {
+            return;
+        }
+        Path directory = templateFile.getParent();
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            stop();
+            throw new SiddhiAppRuntimeException("Failed to watch the report template " + templateFile + ".", e);
+        }
+        WatchService service = watchService;
+        watcherThread = Executors.newSingleThreadExecutor(ReportExecutors.newThreadFactory(name,
+                ReportConstants.ExecutorTypes.FIXED));
+        watcherThread.execute(() -> watch(service));
+        LOGGER.debug("Watching the report template " + templateFile + " for changes.");
+    }
+
+    public synchronized void stop() {
+        if (watcherThread != null) {
+            watcherThread.shutdownNow();
+            watcherThread = null;
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                LOGGER.debug("Failed to close the watch service of the report template " + templateFile + ".", e);
+            }
+            watchService = null;
+        }
+    }
+
+    private void watch(WatchService service) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (!isTemplateChanged(service.take())) {
+                    continue;
+                }
+                // the events of the file are drained until it stops changing, and the template is reloaded once.
+                WatchKey watchKey = service.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+                while (watchKey != null) {
+                    isTemplateChanged(watchKey);
+                    watchKey = service.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                try {
+                    reloader.run();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Failed to reload the report template " + templateFile + ".", e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // the watcher is stopped.
+        }
+    }
+
+    private boolean isTemplateChanged(WatchKey watchKey) {
+        boolean templateChanged = false;
+        for (WatchEvent<?> event : watchKey.pollEvents()) {
+            // an overflow may have dropped the events of the template, hence it is checked for changes.
+            templateChanged |= event.kind() == StandardWatchEventKinds.OVERFLOW ||
+                    templateFile.getFileName().equals(event.context());
+        }
+        watchKey.reset();
+        return templateChanged;
+    }
+}
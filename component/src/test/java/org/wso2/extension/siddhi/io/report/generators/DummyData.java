@@ -66,6 +66,16 @@ public class DummyData {
         return reportProperties;
     }
 
+    public static Map<String, String> getDynamicOutputPathReportProperties() {
+        Map<String, String> reportProperties = new HashMap<>();
+        String template = DummyData.class.getClassLoader().getResource("fromResultsetData.jrxml").getFile();
+        reportProperties.put("template", template);
+        reportProperties.put("outputpath", "TestReportURI/TestConcurrentReport{symbol}");
+        reportProperties.put("output.format", "pdf");
+        reportProperties.put("report.dynamic.name.value", "{symbol}");
+        return reportProperties;
+    }
+
     public static Map<String, String> getDyanmicReportParameters() {
         Map<String, String> reportProperties = new HashMap<>();
         String template = DummyData.class.getClassLoader().getResource("dynamicTemplate.jrxml").getFile();
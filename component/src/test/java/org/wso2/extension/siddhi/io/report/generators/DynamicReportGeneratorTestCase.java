@@ -18,10 +18,34 @@
 
 package org.wso2.extension.siddhi.io.report.generators;
 
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRPrintText;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.data.JRMapCollectionDataSource;
+import net.sf.jasperreports.engine.design.JRDesignBand;
+import net.sf.jasperreports.engine.design.JRDesignField;
+import net.sf.jasperreports.engine.design.JRDesignFrame;
+import net.sf.jasperreports.engine.design.JRDesignSubreport;
+import net.sf.jasperreports.engine.design.JasperDesign;
+import net.sf.jasperreports.engine.xml.JRXmlLoader;
 import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
 import org.testng.annotations.Test;
+import org.wso2.extension.siddhi.io.report.util.ReportColumnSchema;
+import org.wso2.extension.siddhi.io.report.util.ReportJsonDataSource;
 import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -42,4 +66,116 @@ public class DynamicReportGeneratorTestCase {
         DynamicReportGenerator dynamicReportGenerator = new DynamicReportGenerator(reportProperties);
         dynamicReportGenerator.generateReport(DummyData.STRING_DUMMY_DATA);
     }
+
+    @Test(expectedExceptions = SiddhiAppRuntimeException.class, expectedExceptionsMessageRegExp = "Failed to generate" +
+            " the report. Provide a numeric series column. ")
+    public void dynamicReportGeneratorTest2() {
+        LOGGER.info("---------------------------------------------------------------------------------------------");
+        LOGGER.info("DynamicReportGenerator TestCase 2 - Generate reports with a non numeric series column given.");
+        LOGGER.info("---------------------------------------------------------------------------------------------");
+
+        Map<String, String> columnClasses = new LinkedHashMap<>();
+        columnClasses.put("symbol", String.class.getName());
+        columnClasses.put("price", String.class.getName());
+        columnClasses.put("volume", String.class.getName());
+        Map<String, String> reportProperties = DummyData.getDyanmicReportParameters();
+        DynamicReportGenerator dynamicReportGenerator = new DynamicReportGenerator(reportProperties,
+                new ReportColumnSchema(columnClasses));
+        dynamicReportGenerator.generateReport(DummyData.STRING_DUMMY_DATA);
+    }
+
+    @Test
+    public void dynamicReportGeneratorTest3() throws JRException {
+        LOGGER.info("----------------------------------------------------------------------------------");
+        LOGGER.info("DynamicReportGenerator TestCase 3 - Fill a report while the payload is decoded.");
+        LOGGER.info("----------------------------------------------------------------------------------");
+
+        JasperReport jasperReport = JasperCompileManager.compileReport(DummyData.class.getClassLoader()
+                .getResource("eventRows.jrxml").getFile());
+        Map<String, String> columnClasses = new LinkedHashMap<>();
+        columnClasses.put("symbol", String.class.getName());
+        columnClasses.put("price", Double.class.getName());
+        columnClasses.put("volume", Long.class.getName());
+        ReportColumnSchema columnSchema = new ReportColumnSchema(columnClasses);
+        // the attributes which are not columns are skipped, and a missing attribute is filled as null
+        String payload = "[{\"event\":{\"symbol\":\"WSO2\",\"price\":55.6,\"volume\":100,\"open\":true}}," +
+                "{\"event\":{\"symbol\":\"IBM\",\"volume\":200}},{\"event\":{\"symbol\":\"GOOGLE\"," +
+                "\"price\":50.0,\"volume\":300}}]";
+        JasperPrint jasperPrint = JasperFillManager.fillReport(jasperReport, new HashMap<>(),
+                new ReportJsonDataSource(payload, columnSchema));
+        AssertJUnit.assertEquals(Arrays.asList("WSO2", "55.6", "100", "IBM", "null", "200", "GOOGLE", "50.0", "300"),
+                getTexts(jasperPrint));
+        AssertJUnit.assertFalse(DynamicReportGenerator.isRewindRequired(jasperReport));
+    }
+
+    @Test
+    public void dynamicReportGeneratorTest4() throws JRException {
+        LOGGER.info("----------------------------------------------------------------------------------------");
+        LOGGER.info("DynamicReportGenerator TestCase 4 - Require a rewindable data source for the subreports.");
+        LOGGER.info("----------------------------------------------------------------------------------------");
+
+        JasperDesign jasperDesign = JRXmlLoader.load(DummyData.class.getClassLoader().getResource("eventRows.jrxml")
+                .getFile());
+        AssertJUnit.assertFalse(DynamicReportGenerator.isRewindRequired(jasperDesign));
+        // a subreport may be given the data source of the report, hence the report may read its data again
+        JRDesignFrame frame = new JRDesignFrame(jasperDesign);
+        frame.addElement(new JRDesignSubreport(jasperDesign));
+        JRDesignBand summary = new JRDesignBand();
+        summary.addElement(frame);
+        jasperDesign.setSummary(summary);
+        AssertJUnit.assertTrue(DynamicReportGenerator.isRewindRequired(jasperDesign));
+    }
+
+    @Test
+    public void dynamicReportGeneratorTest5() throws JRException {
+        LOGGER.info("------------------------------------------------------------------------------------------");
+        LOGGER.info("DynamicReportGenerator TestCase 5 - Generate reports with a long column above 2^53 given.");
+        LOGGER.info("------------------------------------------------------------------------------------------");
+
+        Map<String, String> columnClasses = new LinkedHashMap<>();
+        columnClasses.put("symbol", String.class.getName());
+        columnClasses.put("price", Double.class.getName());
+        columnClasses.put("volume", Long.class.getName());
+        List<Object> volumes = new ArrayList<>();
+        DynamicReportGenerator dynamicReportGenerator = new DynamicReportGenerator(
+                DummyData.getDyanmicReportParameters(), new ReportColumnSchema(columnClasses)) {
+            @Override
+            public JasperPrint fillReportData(JasperReport jasperReport, Map<String, Object> parameters,
+                                              JRDataSource dataSource) {
+                JRDesignField volume = new JRDesignField();
+                volume.setName("volume");
+                volume.setValueClass(Long.class);
+                List<Map<String, ?>> rows = new ArrayList<>();
+                try {
+                    while (dataSource.next()) {
+                        Map<String, Object> row = new HashMap<>();
+                        row.put("symbol", "WSO2");
+                        row.put("price", 55.6);
+                        row.put("volume", dataSource.getFieldValue(volume));
+                        volumes.add(row.get("volume"));
+                        rows.add(row);
+                    }
+                } catch (JRException e) {
+                    throw new SiddhiAppRuntimeException("Failed to read the report data.", e);
+                }
+                return super.fillReportData(jasperReport, parameters, new JRMapCollectionDataSource(rows));
+            }
+        };
+        // 2^53 + 1 is rounded to 2^53 when it is decoded as a double
+        dynamicReportGenerator.generateReport("{\"event\":{\"symbol\":\"WSO2\",\"price\":55.6," +
+                "\"volume\":9007199254740993}}");
+        AssertJUnit.assertEquals(Arrays.<Object>asList(9007199254740993L), volumes);
+    }
+
+    private static List<String> getTexts(JasperPrint jasperPrint) {
+        List<String> texts = new ArrayList<>();
+        for (JRPrintPage page : jasperPrint.getPages()) {
+            for (JRPrintElement element : page.getElements()) {
+                if (element instanceof JRPrintText) {
+                    texts.add(((JRPrintText) element).getFullText());
+                }
+            }
+        }
+        return texts;
+    }
 }
@@ -18,21 +18,49 @@
 
 package org.wso2.extension.siddhi.io.report.generators;
 
+import net.sf.jasperreports.engine.JRDataSource;
 import net.sf.jasperreports.engine.JREmptyDataSource;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperPrint;
 import net.sf.jasperreports.engine.JasperReport;
 import net.sf.jasperreports.engine.data.JRMapArrayDataSource;
 import net.sf.jasperreports.engine.design.JasperDesign;
+import net.sf.jasperreports.engine.util.JRSaver;
 import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 import org.wso2.extension.siddhi.io.report.util.DynamicDataProvider;
 import org.wso2.extension.siddhi.io.report.util.ReportConstants;
+import org.wso2.extension.siddhi.io.report.util.ReportSinkMetrics;
+import org.wso2.extension.siddhi.io.report.util.ReportTemplateCache;
+import org.wso2.extension.siddhi.io.report.util.ReportTemplateRegistry;
+import org.wso2.extension.siddhi.io.report.util.ReportTemplateWatcher;
 import org.wso2.siddhi.core.exception.SiddhiAppCreationException;
 import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.JMException;
 
 /**
  * StaticReportGenerator test case.
@@ -102,4 +130,304 @@ public class StaticReportGeneratorTestCase {
         parameters.put("TableDataSource", new JRMapArrayDataSource(dataFromPayload.toArray()));
         staticReportGenerator.fillReportData(jasperReport, parameters, new JREmptyDataSource());
     }
+
+    @Test
+    public void staticReportGeneratorTest5() throws InterruptedException {
+        LOGGER.info("------------------------------------------------------------------------------------------");
+        LOGGER.info("StaticReportGenerator TestCase 5 - Generate reports with dynamic output paths in parallel.");
+        LOGGER.info("------------------------------------------------------------------------------------------");
+
+        Map<String, String> reportProperties = DummyData.getDynamicOutputPathReportProperties();
+        String outputPath = reportProperties.get(ReportConstants.OUTPUT_PATH);
+        StaticReportGenerator staticReportGenerator = new StaticReportGenerator(reportProperties);
+        String[] symbols = new String[]{"WSO2", "IBM", "GOOGLE", "ORACLE"};
+        for (String symbol : symbols) {
+            new File("TestReportURI/TestConcurrentReport" + symbol + ".pdf").delete();
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(symbols.length);
+        List<Future<?>> renders = new ArrayList<>();
+        for (String symbol : symbols) {
+            String payload = "[{\"event\":{\"symbol\":\"" + symbol + "\",\"price\":55.6,\"volume\":100}}]";
+            renders.add(executorService.submit(() -> staticReportGenerator.generateReport(payload)));
+        }
+        for (Future<?> render : renders) {
+            try {
+                render.get();
+            } catch (ExecutionException e) {
+                AssertJUnit.fail("Report generation failed: " + e.getCause().getMessage());
+            }
+        }
+        executorService.shutdown();
+        staticReportGenerator.release();
+
+        AssertJUnit.assertEquals(outputPath, reportProperties.get(ReportConstants.OUTPUT_PATH));
+        for (String symbol : symbols) {
+            AssertJUnit.assertTrue(new File("TestReportURI/TestConcurrentReport" + symbol + ".pdf").exists());
+        }
+    }
+
+    @Test
+    public void staticReportGeneratorTest6() throws IOException {
+        LOGGER.info("-------------------------------------------------------------------------------------");
+        LOGGER.info("StaticReportGenerator TestCase 6 - Load the compiled template from the template cache.");
+        LOGGER.info("-------------------------------------------------------------------------------------");
+
+        Path cacheDirectory = Files.createTempDirectory("siddhi-report-templates");
+        Map<String, String> reportProperties = DummyData.getDynamicOutputPathReportProperties();
+        reportProperties.put(ReportConstants.TEMPLATE_CACHE_DIRECTORY, cacheDirectory.toString());
+        new StaticReportGenerator(reportProperties).release();
+        Path compiledTemplate = cacheDirectory.resolve(ReportTemplateCache.getKey(Files.readAllBytes(
+                Paths.get(reportProperties.get(ReportConstants.TEMPLATE)))) + ".jasper");
+        AssertJUnit.assertTrue(Files.exists(compiledTemplate));
+        AssertJUnit.assertEquals(1, cacheDirectory.toFile().list().length);
+
+        // the second generator loads the compiled template, and renders the same report
+        new File("TestReportURI/TestConcurrentReportWSO2.pdf").delete();
+        StaticReportGenerator staticReportGenerator = new StaticReportGenerator(reportProperties);
+        staticReportGenerator.generateReport(DummyData.DUMMY_PAYLOAD);
+        staticReportGenerator.release();
+        AssertJUnit.assertTrue(new File("TestReportURI/TestConcurrentReportWSO2.pdf").exists());
+
+        // a file which is not a compiled template is replaced by compiling the template again
+        Files.write(compiledTemplate, new byte[]{1, 2, 3});
+        new StaticReportGenerator(reportProperties).release();
+        AssertJUnit.assertTrue(Files.size(compiledTemplate) > 3);
+
+        if (cacheDirectory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            // a compiled template is not loaded from a directory which the other users can write to
+            String key = compiledTemplate.getFileName().toString().replace(".jasper", "");
+            ReportTemplateCache templateCache = new ReportTemplateCache(cacheDirectory);
+            AssertJUnit.assertNotNull(templateCache.get(key));
+            Files.setPosixFilePermissions(cacheDirectory, PosixFilePermissions.fromString("rwxrwxrwx"));
+            AssertJUnit.assertNull(templateCache.get(key));
+            AssertJUnit.assertTrue(Files.exists(compiledTemplate));
+            Files.setPosixFilePermissions(cacheDirectory, PosixFilePermissions.fromString("rwx------"));
+            Files.setPosixFilePermissions(compiledTemplate, PosixFilePermissions.fromString("rw-rw-rw-"));
+            AssertJUnit.assertNull(templateCache.get(key));
+            Files.setPosixFilePermissions(compiledTemplate, PosixFilePermissions.fromString("rw-------"));
+
+            // the directory of the cache is created to be only accessible by the user of the server
+            Path newCacheDirectory = cacheDirectory.resolve("templates");
+            new ReportTemplateCache(newCacheDirectory).put(key, templateCache.get(key));
+            AssertJUnit.assertEquals(PosixFilePermissions.fromString("rwx------"),
+                    Files.getPosixFilePermissions(newCacheDirectory));
+            Files.delete(newCacheDirectory.resolve(compiledTemplate.getFileName()));
+            Files.delete(newCacheDirectory);
+        }
+        Files.delete(compiledTemplate);
+        Files.delete(cacheDirectory);
+    }
+
+    @Test
+    public void staticReportGeneratorTest7() throws Exception {
+        LOGGER.info("----------------------------------------------------------------------------------");
+        LOGGER.info("StaticReportGenerator TestCase 7 - Share the compiled templates among generators.");
+        LOGGER.info("----------------------------------------------------------------------------------");
+
+        String template = DummyData.class.getClassLoader().getResource("fromResultsetData.jrxml").getFile();
+        StaticReportGenerator staticReportGenerator = new StaticReportGenerator(
+                DummyData.getDynamicOutputPathReportProperties());
+        String key = ReportTemplateCache.getKey(staticReportGenerator.readTemplate(template));
+        // the template is not held in the registry until the generator is acquired
+        AssertJUnit.assertNull(ReportTemplateRegistry.acquire(key, () -> null));
+        ReportTemplateRegistry.release(key);
+        staticReportGenerator.acquire();
+        JasperReport compiledTemplate = ReportTemplateRegistry.acquire(key, () -> {
+            throw new AssertionError("The registered template was compiled again.");
+        });
+        ReportTemplateRegistry.release(key);
+
+        // the template is compiled once for the acquisitions which wait while it is compiled
+        AtomicInteger compilations = new AtomicInteger();
+        CountDownLatch compiling = new CountDownLatch(1);
+        CountDownLatch waiting = new CountDownLatch(1);
+        String otherKey = ReportTemplateCache.getKey(new byte[]{1});
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        Future<JasperReport> compiled = executorService.submit(() -> ReportTemplateRegistry.acquire(otherKey, () -> {
+            compilations.incrementAndGet();
+            compiling.countDown();
+            try {
+                waiting.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return compiledTemplate;
+        }));
+        compiling.await();
+        Future<JasperReport> shared = executorService.submit(() -> ReportTemplateRegistry.acquire(otherKey, () -> {
+            compilations.incrementAndGet();
+            return null;
+        }));
+        Thread.sleep(100);
+        waiting.countDown();
+        AssertJUnit.assertSame(compiled.get(), shared.get());
+        AssertJUnit.assertEquals(1, compilations.get());
+        executorService.shutdown();
+
+        // the template is compiled again once all its acquisitions are released
+        ReportTemplateRegistry.release(otherKey);
+        ReportTemplateRegistry.release(otherKey);
+        staticReportGenerator.release();
+        AssertJUnit.assertNull(ReportTemplateRegistry.acquire(key, () -> null));
+        ReportTemplateRegistry.release(key);
+    }
+
+    @Test
+    public void staticReportGeneratorTest8() throws Exception {
+        LOGGER.info("-------------------------------------------------------------------------");
+        LOGGER.info("StaticReportGenerator TestCase 8 - Reload the template when it is changed.");
+        LOGGER.info("-------------------------------------------------------------------------");
+
+        Path templateDirectory = Files.createTempDirectory("siddhi-report-template");
+        Path template = templateDirectory.resolve("fromResultsetData.jrxml");
+        byte[] jrxml = Files.readAllBytes(Paths.get(classLoader.getResource("fromResultsetData.jrxml").getFile()));
+        Files.write(template, jrxml);
+        Map<String, String> reportProperties = DummyData.getDynamicOutputPathReportProperties();
+        reportProperties.put(ReportConstants.TEMPLATE, template.toString());
+        StaticReportGenerator staticReportGenerator = new StaticReportGenerator(reportProperties);
+        staticReportGenerator.acquire();
+        AssertJUnit.assertFalse(staticReportGenerator.reloadTemplate());
+
+        // a template which fails to compile is counted, and the previous version is used
+        Files.write(template, Files.readAllBytes(Paths.get(classLoader.getResource("incorrectTemplate.jrxml")
+                .getFile())));
+        AssertJUnit.assertFalse(staticReportGenerator.reloadTemplate());
+        AssertJUnit.assertEquals(1, staticReportGenerator.getFailedTemplateReloadCount());
+        new File("TestReportURI/TestConcurrentReportIBM.pdf").delete();
+        staticReportGenerator.generateReport("[{\"event\":{\"symbol\":\"IBM\",\"price\":55.6,\"volume\":100}}]");
+        AssertJUnit.assertTrue(new File("TestReportURI/TestConcurrentReportIBM.pdf").exists());
+
+        // the watcher reloads the template once it is changed
+        CountDownLatch reloaded = new CountDownLatch(1);
+        ReportTemplateWatcher templateWatcher = new ReportTemplateWatcher("siddhi-report-template-test-", template,
+                () -> {
+                    if (staticReportGenerator.reloadTemplate()) {
+                        reloaded.countDown();
+                    }
+                });
+        templateWatcher.start();
+        Files.write(template, (new String(jrxml, StandardCharsets.UTF_8) + "\n<!-- changed -->\n")
+                .getBytes(StandardCharsets.UTF_8));
+        AssertJUnit.assertTrue(reloaded.await(30, TimeUnit.SECONDS));
+        templateWatcher.stop();
+        AssertJUnit.assertEquals(1, staticReportGenerator.getTemplateReloadCount());
+        staticReportGenerator.release();
+        AssertJUnit.assertFalse(staticReportGenerator.reloadTemplate());
+        Files.delete(template);
+        Files.delete(templateDirectory);
+    }
+
+    @Test
+    public void staticReportGeneratorTest9() throws Exception {
+        LOGGER.info("----------------------------------------------------------------------------");
+        LOGGER.info("StaticReportGenerator TestCase 9 - Load a template which is already compiled.");
+        LOGGER.info("----------------------------------------------------------------------------");
+
+        Path templateDirectory = Files.createTempDirectory("siddhi-report-template");
+        Path cacheDirectory = Files.createTempDirectory("siddhi-report-templates");
+        Path template = templateDirectory.resolve("fromResultsetData.jasper");
+        JRSaver.saveObject(JasperCompileManager.compileReport(classLoader.getResource("fromResultsetData.jrxml")
+                .getFile()), template.toFile());
+        Map<String, String> reportProperties = DummyData.getDynamicOutputPathReportProperties();
+        reportProperties.put(ReportConstants.TEMPLATE, template.toString());
+        reportProperties.put(ReportConstants.TEMPLATE_CACHE_DIRECTORY, cacheDirectory.toString());
+        new File("TestReportURI/TestConcurrentReportWSO2.pdf").delete();
+        StaticReportGenerator staticReportGenerator = new StaticReportGenerator(reportProperties);
+        staticReportGenerator.generateReport(DummyData.DUMMY_PAYLOAD);
+        staticReportGenerator.release();
+        AssertJUnit.assertTrue(new File("TestReportURI/TestConcurrentReportWSO2.pdf").exists());
+        // the compiled template is loaded as it is, hence it is not cached
+        AssertJUnit.assertEquals(0, cacheDirectory.toFile().list().length);
+
+        // the templates compiled when the extension is built are loaded by their names
+        new File("TestReportURI/TestConcurrentReportWSO2.pdf").delete();
+        reportProperties.put(ReportConstants.TEMPLATE, "fromResultsetData.jasper");
+        staticReportGenerator = new StaticReportGenerator(reportProperties);
+        staticReportGenerator.generateReport(DummyData.DUMMY_PAYLOAD);
+        staticReportGenerator.release();
+        AssertJUnit.assertTrue(new File("TestReportURI/TestConcurrentReportWSO2.pdf").exists());
+
+        // a file which is not a compiled template fails to load
+        Files.write(template, new byte[]{1, 2, 3});
+        reportProperties.put(ReportConstants.TEMPLATE, template.toString());
+        try {
+            new StaticReportGenerator(reportProperties);
+            AssertJUnit.fail("A file which is not a compiled template is loaded.");
+        } catch (SiddhiAppRuntimeException e) {
+            AssertJUnit.assertTrue(e.getMessage().startsWith("Failed to load the compiled template"));
+        }
+        Files.delete(template);
+        Files.delete(templateDirectory);
+        Files.delete(cacheDirectory);
+    }
+
+    @Test
+    public void staticReportGeneratorTest10() throws Exception {
+        LOGGER.info("-------------------------------------------------------------------------------------------");
+        LOGGER.info("StaticReportGenerator TestCase 10 - Complete the renders with the template they started with.");
+        LOGGER.info("-------------------------------------------------------------------------------------------");
+
+        Path templateDirectory = Files.createTempDirectory("siddhi-report-template");
+        Path template = templateDirectory.resolve("fromResultsetData.jrxml");
+        String jrxml = new String(Files.readAllBytes(Paths.get(classLoader.getResource("fromResultsetData.jrxml")
+                .getFile())), StandardCharsets.UTF_8);
+        Files.write(template, jrxml.getBytes(StandardCharsets.UTF_8));
+        Map<String, String> reportProperties = DummyData.getDynamicOutputPathReportProperties();
+        reportProperties.put(ReportConstants.TEMPLATE, template.toString());
+        CountDownLatch filling = new CountDownLatch(1);
+        CountDownLatch reloaded = new CountDownLatch(1);
+        List<String> filledTemplates = new CopyOnWriteArrayList<>();
+        StaticReportGenerator staticReportGenerator = new StaticReportGenerator(reportProperties) {
+            @Override
+            public JasperPrint fillReportData(JasperReport jasperReport, Map<String, Object> parameters,
+                                              JRDataSource dataSource) {
+                filledTemplates.add(jasperReport.getName());
+                filling.countDown();
+                try {
+                    // the first render is held while the template is reloaded
+                    reloaded.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.fillReportData(jasperReport, parameters, dataSource);
+            }
+        };
+        staticReportGenerator.acquire();
+        ReportSinkMetrics sinkMetrics = new ReportSinkMetrics("TestSiddhiApp", "TestStream", null,
+                staticReportGenerator);
+        sinkMetrics.register();
+
+        new File("TestReportURI/TestConcurrentReportIBM.pdf").delete();
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        Future<?> render = executorService.submit(() -> staticReportGenerator.generateReport(
+                "[{\"event\":{\"symbol\":\"IBM\",\"price\":55.6,\"volume\":100}}]"));
+        AssertJUnit.assertTrue(filling.await(30, TimeUnit.SECONDS));
+        Files.write(template, jrxml.replace("name=\"fromResultsetData\"", "name=\"reloadedResultsetData\"")
+                .getBytes(StandardCharsets.UTF_8));
+        AssertJUnit.assertTrue(staticReportGenerator.reloadTemplate());
+        reloaded.countDown();
+        render.get(30, TimeUnit.SECONDS);
+        executorService.shutdown();
+        AssertJUnit.assertTrue(new File("TestReportURI/TestConcurrentReportIBM.pdf").exists());
+        AssertJUnit.assertEquals(1L, getMetric(sinkMetrics, "TemplateReloadCount"));
+        AssertJUnit.assertEquals(0L, getMetric(sinkMetrics, "FailedTemplateReloadCount"));
+
+        // a template which fails to compile is counted, and the reloaded template is kept
+        Files.write(template, Files.readAllBytes(Paths.get(classLoader.getResource("incorrectTemplate.jrxml")
+                .getFile())));
+        AssertJUnit.assertFalse(staticReportGenerator.reloadTemplate());
+        AssertJUnit.assertEquals(1L, getMetric(sinkMetrics, "TemplateReloadCount"));
+        AssertJUnit.assertEquals(1L, getMetric(sinkMetrics, "FailedTemplateReloadCount"));
+        staticReportGenerator.generateReport(DummyData.DUMMY_PAYLOAD);
+        AssertJUnit.assertEquals(Arrays.asList("fromResultsetData", "reloadedResultsetData"), filledTemplates);
+
+        sinkMetrics.unregister();
+        staticReportGenerator.release();
+        Files.delete(template);
+        Files.delete(templateDirectory);
+    }
+
+    private static Object getMetric(ReportSinkMetrics sinkMetrics, String name) throws JMException {
+        return ManagementFactory.getPlatformMBeanServer().getAttribute(sinkMetrics.getObjectName(), name);
+    }
 }
@@ -1227,7 +1227,7 @@ public class TestCaseOfReportSink {
             siddhiAppRuntime.shutdown();
         } catch (SiddhiAppCreationException e) {
             AssertJUnit.assertEquals("In 'report' sink of siddhi app TestSiddhiApp Invalid map type " + testMapType +
-                    " Only JSON map type is allowed.", e.getMessageWithOutContext());
+                    " Only JSON and passThrough map types are allowed.", e.getMessageWithOutContext());
         }
     }
 
@@ -1597,4 +1597,204 @@ public class TestCaseOfReportSink {
         AssertJUnit.assertTrue(sink.exists());
         siddhiAppRuntime.shutdown();
     }
+
+    @Test
+    public void reportSinkTest33() throws InterruptedException {
+        LOGGER.info("---------------------------------------------------------------------------");
+        LOGGER.info("ReportSink TestCase 33 - Configure siddhi to generate reports asynchronously");
+        LOGGER.info("---------------------------------------------------------------------------");
+
+        String reportName = "testAsyncReport";
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "define stream FooStream(symbol string, price float, volume long); " +
+                "@sink(type='report',outputpath='" + reportName + "',async='true',async.queue.size='10'," +
+                "async.workers='2',@map(type='json')) " +
+                "define stream BarStream (symbol string,price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("FooStream");
+
+        siddhiAppRuntime.start();
+
+        Event testEvent1 = new Event();
+        testEvent1.setData(new Object[]{"WSO2", 55.6f, 100L});
+
+        Event testEvent2 = new Event();
+        testEvent2.setData(new Object[]{"IBM", 57.8f, 100L});
+
+        stockStream.send(new Event[]{testEvent1, testEvent2});
+        siddhiAppRuntime.shutdown();
+
+        File sink = new File(reportName + ".pdf");
+        AssertJUnit.assertTrue(sink.exists());
+    }
+
+    @Test
+    public void reportSinkTest34() throws InterruptedException {
+        LOGGER.info("------------------------------------------------------------------------");
+        LOGGER.info("ReportSink TestCase 34 - Generate reports with invalid async worker count");
+        LOGGER.info("------------------------------------------------------------------------");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "define stream FooStream(symbol string, price float, volume long); " +
+                "@sink(type='report',outputpath='testAsyncReport',async='true',async.workers='0'," +
+                "@map(type='json')) " +
+                "define stream BarStream (symbol string,price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        try {
+            SiddhiManager siddhiManager = new SiddhiManager();
+            SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+            siddhiAppRuntime.shutdown();
+            Assert.fail("Expected a SiddhiAppCreationException for the invalid worker count.");
+        } catch (SiddhiAppCreationException e) {
+            AssertJUnit.assertEquals("In 'report' sink of siddhi app TestSiddhiApp '0' is invalid for " +
+                    "async.workers. Should be a positive integer.", e.getMessageWithOutContext());
+        }
+    }
+
+    @Test
+    public void reportSinkTest35() throws InterruptedException {
+        LOGGER.info("-----------------------------------------------------------------------------");
+        LOGGER.info("ReportSink TestCase 35 - Generate a single report for events within an interval");
+        LOGGER.info("-----------------------------------------------------------------------------");
+
+        String reportName = "testIntervalReport";
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "define stream FooStream(symbol string, price float, volume long); " +
+                "@sink(type='report',outputpath='" + reportName + "',report.interval='1 min',@map(type='json')) " +
+                "define stream BarStream (symbol string,price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        File sink = new File(reportName + ".pdf");
+        sink.delete();
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("FooStream");
+
+        siddhiAppRuntime.start();
+
+        Event testEvent1 = new Event();
+        testEvent1.setData(new Object[]{"WSO2", 55.6f, 100L});
+
+        Event testEvent2 = new Event();
+        testEvent2.setData(new Object[]{"IBM", 57.8f, 100L});
+
+        stockStream.send(new Event[]{testEvent1, testEvent2});
+        stockStream.send(testEvent1);
+
+        AssertJUnit.assertFalse(sink.exists());
+        siddhiAppRuntime.shutdown();
+        AssertJUnit.assertTrue(sink.exists());
+    }
+
+    @Test
+    public void reportSinkTest36() throws InterruptedException {
+        LOGGER.info("-------------------------------------------------------------------------------");
+        LOGGER.info("ReportSink TestCase 36 - Generate a report per value of the outputpath variable");
+        LOGGER.info("-------------------------------------------------------------------------------");
+
+        String testReportName = "TestReportURI/TestPartitionedReport";
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "define stream FooStream(symbol string, price float, volume long); " +
+                "@sink(type='report',outputpath='" + testReportName + "{symbol}',partition.parallelism='2'," +
+                "@map(type='json')) " +
+                "define stream BarStream (symbol string,price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("FooStream");
+
+        siddhiAppRuntime.start();
+
+        Event testEvent1 = new Event();
+        testEvent1.setData(new Object[]{"WSO2", 55.6f, 100L});
+
+        Event testEvent2 = new Event();
+        testEvent2.setData(new Object[]{"IBM", 57.678f, 200L});
+
+        Event testEvent3 = new Event();
+        testEvent3.setData(new Object[]{"GOOGLE", 50f, 300L});
+
+        Event testEvent4 = new Event();
+        testEvent4.setData(new Object[]{"WSO2", 55.6f, 400L});
+
+        stockStream.send(new Event[]{testEvent1, testEvent2, testEvent3, testEvent4});
+
+        AssertJUnit.assertTrue(new File(testReportName + "WSO2.pdf").exists());
+        AssertJUnit.assertTrue(new File(testReportName + "IBM.pdf").exists());
+        AssertJUnit.assertTrue(new File(testReportName + "GOOGLE.pdf").exists());
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void reportSinkTest37() throws InterruptedException {
+        LOGGER.info("---------------------------------------------------------------------");
+        LOGGER.info("ReportSink TestCase 37 - Generate reports with passThrough map type.");
+        LOGGER.info("---------------------------------------------------------------------");
+
+        String dynamicReportName = "TestReportURI/TestPassThroughReport";
+        String templateReportName = "TestReportURI/TestPassThroughTemplateReport";
+        String testTemplatePath = classLoader.getResource("fromResultsetData.jrxml").getFile();
+        new File(dynamicReportName + ".pdf").delete();
+        new File(templateReportName + ".pdf").delete();
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "define stream FooStream(symbol string, price float, volume long); " +
+                "@sink(type='report',outputpath='" + dynamicReportName + "',@map(type='passThrough')) " +
+                "define stream BarStream (symbol string,price float, volume long); " +
+                "@sink(type='report',outputpath='" + templateReportName + "',template='" + testTemplatePath + "'," +
+                "@map(type='passThrough')) " +
+                "define stream BazStream (symbol string,price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; " +
+                "from FooStream " +
+                "select * " +
+                "insert into BazStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("FooStream");
+
+        siddhiAppRuntime.start();
+
+        Event testEvent1 = new Event();
+        testEvent1.setData(new Object[]{"WSO2", 55.6f, 100L});
+
+        Event testEvent2 = new Event();
+        testEvent2.setData(new Object[]{"IBM", 57.678f, 200L});
+
+        stockStream.send(new Event[]{testEvent1, testEvent2});
+
+        AssertJUnit.assertTrue(new File(dynamicReportName + ".pdf").exists());
+        AssertJUnit.assertTrue(new File(templateReportName + ".pdf").exists());
+        siddhiAppRuntime.shutdown();
+    }
 }
@@ -0,0 +1,373 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.extension.siddhi.io.report.util;
+
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.Test;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
+import org.wso2.siddhi.query.api.definition.Attribute;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * ReportEventBuffer test case.
+ */
+public class ReportEventBufferTestCase {
+    private static final Logger LOGGER = Logger.getLogger(ReportEventBufferTestCase.class);
+    private static final String[] COLUMN_NAMES = new String[]{"symbol", "price", "volume"};
+    private static final String PAYLOAD = "[{\"event\":{\"symbol\":\"WSO2\",\"price\":55.6,\"volume\":100}}," +
+            "{\"event\":{\"symbol\":\"IBM\",\"price\":57.678,\"volume\":100}},{\"event\":{\"symbol\":\"GOOGLE\"," +
+            "\"price\":50.0,\"volume\":100}},{\"event\":{\"symbol\":\"WSO2\",\"price\":55.6,\"volume\":100}}," +
+            "{\"event\":{\"symbol\":\"IBM\",\"price\":58.1,\"volume\":200}}]";
+
+    @Test
+    public void reportEventBufferTest1() {
+        LOGGER.info("---------------------------------------------------------------------------");
+        LOGGER.info("ReportEventBuffer TestCase 1 - Roll over the buffer after the maximum events.");
+        LOGGER.info("---------------------------------------------------------------------------");
+
+        ReportEventBuffer buffer = new ReportEventBuffer(COLUMN_NAMES, 2);
+        List<ReportEventBuffer> batches = buffer.add(PAYLOAD);
+        AssertJUnit.assertEquals(2, batches.size());
+        AssertJUnit.assertEquals(2, batches.get(0).size());
+        AssertJUnit.assertEquals("GOOGLE", batches.get(1).getValue(0, 0));
+        AssertJUnit.assertEquals(1, buffer.size());
+
+        batches = buffer.add("{\"event\":{\"symbol\":\"WSO2\",\"price\":56.0,\"volume\":300}}");
+        AssertJUnit.assertEquals(1, batches.size());
+        AssertJUnit.assertTrue(buffer.isEmpty());
+        AssertJUnit.assertNull(buffer.drain());
+    }
+
+    @Test
+    public void reportEventBufferTest2() {
+        LOGGER.info("-------------------------------------------------------------------");
+        LOGGER.info("ReportEventBuffer TestCase 2 - Group buffered events by an attribute.");
+        LOGGER.info("-------------------------------------------------------------------");
+
+        ReportEventBuffer buffer = new ReportEventBuffer(COLUMN_NAMES);
+        AssertJUnit.assertTrue(buffer.add(PAYLOAD).isEmpty());
+        ReportEventBuffer batch = buffer.drain();
+        AssertJUnit.assertEquals(5, batch.size());
+        AssertJUnit.assertTrue(buffer.isEmpty());
+        AssertJUnit.assertEquals(3, batch.groupBy("symbol").size());
+        AssertJUnit.assertEquals(2, batch.groupBy("symbol").get("IBM").size());
+    }
+
+    @Test
+    public void reportEventBufferTest3() {
+        LOGGER.info("---------------------------------------------------------------------------");
+        LOGGER.info("ReportEventBuffer TestCase 3 - Restore the buffered events from a snapshot.");
+        LOGGER.info("---------------------------------------------------------------------------");
+
+        ReportEventBuffer buffer = new ReportEventBuffer(COLUMN_NAMES);
+        for (int i = 0; i < 300; i++) {
+            buffer.add(PAYLOAD);
+        }
+        buffer.add("{\"event\":{\"symbol\":null,\"price\":1.5,\"volume\":true}}");
+        List<byte[]> chunks = buffer.snapshot();
+        AssertJUnit.assertEquals(2, chunks.size());
+        // the full chunk is not encoded again by the next snapshot
+        AssertJUnit.assertSame(chunks.get(0), buffer.snapshot().get(0));
+
+        ReportEventBuffer restoredBuffer = new ReportEventBuffer(COLUMN_NAMES);
+        restoredBuffer.restore(chunks);
+        AssertJUnit.assertEquals(1501, restoredBuffer.size());
+        AssertJUnit.assertEquals("IBM", restoredBuffer.getValue(1, 0));
+        AssertJUnit.assertEquals(57.678, restoredBuffer.getValue(1, 1));
+        AssertJUnit.assertNull(restoredBuffer.getValue(1500, 0));
+        AssertJUnit.assertEquals(Boolean.TRUE, restoredBuffer.getValue(1500, 2));
+
+        buffer.drain();
+        AssertJUnit.assertTrue(buffer.snapshot().isEmpty());
+    }
+
+    @Test
+    public void reportEventBufferTest4() {
+        LOGGER.info("-------------------------------------------------------------------------");
+        LOGGER.info("ReportEventBuffer TestCase 4 - Buffer the events of the passThrough mapper.");
+        LOGGER.info("-------------------------------------------------------------------------");
+
+        ReportEventBuffer buffer = new ReportEventBuffer(COLUMN_NAMES);
+        buffer.add(new Event[]{new Event(0, new Object[]{"WSO2", 55.6f, 100L}),
+                new Event(0, new Object[]{"IBM", 57.678f, 200L})});
+        buffer.add(new Event(0, new Object[]{"GOOGLE", 50f, 300L}));
+        AssertJUnit.assertEquals(3, buffer.size());
+        AssertJUnit.assertEquals(200L, buffer.getValue(1, 2));
+        AssertJUnit.assertEquals(50f, buffer.getValue(2, 1));
+        AssertJUnit.assertEquals(300.0, ReportEventDataSource.coerce(buffer.getValue(2, 2), Double.class));
+    }
+
+    @Test
+    public void reportEventBufferTest5() {
+        LOGGER.info("--------------------------------------------------------------------------");
+        LOGGER.info("ReportEventBuffer TestCase 5 - Decode the JSON payloads in a single pass.");
+        LOGGER.info("--------------------------------------------------------------------------");
+
+        ReportEventBuffer buffer = new ReportEventBuffer(COLUMN_NAMES);
+        buffer.add("{\"meta\":{\"id\":1},\"event\":{\"volume\":100,\"unknown\":[1,2],\"symbol\":\"WSO2\"," +
+                "\"price\":{\"value\":55.6}}}");
+        AssertJUnit.assertEquals(1, buffer.size());
+        AssertJUnit.assertEquals("WSO2", buffer.getValue(0, 0));
+        AssertJUnit.assertEquals("{\"value\":55.6}", buffer.getValue(0, 1));
+        AssertJUnit.assertEquals(100.0, buffer.getValue(0, 2));
+
+        List<Map<String, Object>> events = ReportJsonDecoder.decodeMaps(PAYLOAD);
+        AssertJUnit.assertEquals(5, events.size());
+        AssertJUnit.assertEquals(Arrays.asList(COLUMN_NAMES), new ArrayList<>(events.get(4).keySet()));
+        AssertJUnit.assertEquals(58.1, events.get(4).get("price"));
+    }
+
+    @Test(expectedExceptions = SiddhiAppRuntimeException.class)
+    public void reportEventBufferTest6() {
+        LOGGER.info("------------------------------------------------------------");
+        LOGGER.info("ReportEventBuffer TestCase 6 - Reject a malformed JSON payload.");
+        LOGGER.info("------------------------------------------------------------");
+
+        new ReportEventBuffer(COLUMN_NAMES).add("[{\"event\":{\"symbol\":\"WSO2\",}");
+    }
+
+    @Test
+    public void reportEventBufferTest7() {
+        LOGGER.info("----------------------------------------------------------------------------");
+        LOGGER.info("ReportEventBuffer TestCase 7 - Render the buffered events with the stream schema.");
+        LOGGER.info("----------------------------------------------------------------------------");
+
+        ReportColumnSchema columnSchema = ReportColumnSchema.fromAttributes(Arrays.asList(
+                new Attribute("symbol", Attribute.Type.STRING), new Attribute("price", Attribute.Type.FLOAT),
+                new Attribute("volume", Attribute.Type.INT)));
+        AssertJUnit.assertEquals(Arrays.asList(COLUMN_NAMES), new ArrayList<>(columnSchema.getColumnClasses()
+                .keySet()));
+        AssertJUnit.assertEquals(Integer.class.getName(), columnSchema.getColumnClasses().get("volume"));
+        AssertJUnit.assertSame(columnSchema.getColumns().get(2), columnSchema.getColumn("volume"));
+
+        ReportEventBuffer buffer = ReportEventBuffer.fromPayload(COLUMN_NAMES, PAYLOAD);
+        AssertJUnit.assertEquals(100, ReportEventDataSource.coerce(buffer.getValue(0, 2), Integer.class));
+    }
+
+    @Test
+    public void reportEventBufferTest8() {
+        LOGGER.info("--------------------------------------------------------------------------------");
+        LOGGER.info("ReportEventBuffer TestCase 8 - Keep the values of a column with different types.");
+        LOGGER.info("--------------------------------------------------------------------------------");
+
+        ReportEventBuffer buffer = new ReportEventBuffer(COLUMN_NAMES);
+        buffer.add(new Event(0, new Object[]{null, 55.6f, 100L}));
+        buffer.add(PAYLOAD);
+        buffer.add(new Event(0, new Object[]{"WSO2", 57.5f, "N/A"}));
+        AssertJUnit.assertEquals(7, buffer.size());
+        AssertJUnit.assertNull(buffer.getValue(0, 0));
+        AssertJUnit.assertEquals("WSO2", buffer.getValue(1, 0));
+        AssertJUnit.assertEquals(55.6f, buffer.getValue(0, 1));
+        AssertJUnit.assertEquals(55.6, buffer.getValue(1, 1));
+        AssertJUnit.assertEquals(100L, buffer.getValue(0, 2));
+        AssertJUnit.assertEquals(200.0, buffer.getValue(5, 2));
+        AssertJUnit.assertEquals("N/A", buffer.getValue(6, 2));
+
+        Map<String, ReportEventBuffer> groups = buffer.groupBy("symbol");
+        AssertJUnit.assertEquals(Arrays.asList("null", "WSO2", "IBM", "GOOGLE"), new ArrayList<>(groups.keySet()));
+        AssertJUnit.assertEquals(3, groups.get("WSO2").size());
+        AssertJUnit.assertEquals("N/A", groups.get("WSO2").getValue(2, 2));
+    }
+
+    @Test
+    public void reportEventBufferTest9() {
+        LOGGER.info("------------------------------------------------------------------------------");
+        LOGGER.info("ReportEventBuffer TestCase 9 - Group a large buffer into datasets in parallel.");
+        LOGGER.info("------------------------------------------------------------------------------");
+
+        ReportEventBuffer buffer = new ReportEventBuffer(COLUMN_NAMES);
+        String[] symbols = new String[]{"WSO2", "IBM", "GOOGLE"};
+        for (int i = 0; i < 30000; i++) {
+            buffer.add(new Event(0, new Object[]{symbols[i % symbols.length], 50.0 + i, (long) i}));
+        }
+        Map<String, ReportEventBuffer> datasets = buffer.groupBy("symbol", true);
+        AssertJUnit.assertEquals(Arrays.asList(symbols), new ArrayList<>(datasets.keySet()));
+        ReportEventBuffer dataset = datasets.get("IBM");
+        AssertJUnit.assertEquals(10000, dataset.size());
+        AssertJUnit.assertEquals(Arrays.asList("price", "volume"), Arrays.asList(dataset.getColumnNames()));
+        // the events keep their order across the chunks grouped in parallel
+        for (int i = 0; i < dataset.size(); i++) {
+            AssertJUnit.assertEquals(3L * i + 1, dataset.getValue(i, 1));
+        }
+    }
+
+    @Test
+    public void reportEventBufferTest10() throws IOException {
+        LOGGER.info("---------------------------------------------------------------------------");
+        LOGGER.info("ReportEventBuffer TestCase 10 - Spill the buffered events to the disk.");
+        LOGGER.info("---------------------------------------------------------------------------");
+
+        Path spillDirectory = Files.createTempDirectory("siddhi-report-spill");
+        ReportEventBuffer buffer = new ReportEventBuffer(COLUMN_NAMES, 0, 100, spillDirectory);
+        for (int i = 0; i < 250; i++) {
+            buffer.add(new Event(0, new Object[]{i % 2 == 0 ? "WSO2" : "IBM", 50.0 + i, (long) i}));
+        }
+        AssertJUnit.assertEquals(250, buffer.size());
+        // the segment files are removed once they are mapped
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            AssertJUnit.assertEquals(0, files.count());
+        }
+        AssertJUnit.assertEquals("IBM", buffer.getValue(99, 0));
+        AssertJUnit.assertEquals(150.0, buffer.getValue(100, 1));
+        AssertJUnit.assertEquals(249L, buffer.getValue(249, 2));
+
+        ReportEventBuffer batch = buffer.drain();
+        AssertJUnit.assertTrue(buffer.isEmpty());
+        Map<String, ReportEventBuffer> groups = batch.groupBy("symbol", true);
+        AssertJUnit.assertEquals(125, groups.get("WSO2").size());
+        AssertJUnit.assertEquals(248L, groups.get("WSO2").getValue(124, 1));
+
+        ReportEventBuffer restoredBuffer = new ReportEventBuffer(COLUMN_NAMES);
+        restoredBuffer.restore(batch.snapshot());
+        AssertJUnit.assertEquals(250, restoredBuffer.size());
+        AssertJUnit.assertEquals(101L, restoredBuffer.getValue(101, 2));
+        Files.delete(spillDirectory);
+    }
+
+    @Test
+    public void reportEventBufferTest11() {
+        LOGGER.info("---------------------------------------------------------------------------");
+        LOGGER.info("ReportEventBuffer TestCase 11 - Decode the events of a JSON payload one at a time.");
+        LOGGER.info("---------------------------------------------------------------------------");
+
+        String payload = "[{\"event\":{\"symbol\":\"WSO2\",\"price\":55.6,\"volume\":100}}," +
+                "{\"event\":{\"volume\":200,\"symbol\":\"IBM\"}},{\"event\":{\"symbol\":";
+        Map<String, Integer> columnIndexes = new HashMap<>();
+        for (int i = 0; i < COLUMN_NAMES.length; i++) {
+            columnIndexes.put(COLUMN_NAMES[i], i);
+        }
+        Attribute.Type[] columnTypes = new Attribute.Type[]{Attribute.Type.STRING, Attribute.Type.DOUBLE,
+                Attribute.Type.LONG};
+        Object[] row = new Object[COLUMN_NAMES.length];
+        ReportJsonDecoder.RowReader rowReader = ReportJsonDecoder.newRowReader(payload, columnIndexes, columnTypes,
+                row);
+        AssertJUnit.assertTrue(rowReader.next());
+        AssertJUnit.assertEquals(Arrays.asList("WSO2", 55.6, 100L), Arrays.asList(row));
+        AssertJUnit.assertTrue(rowReader.next());
+        // the values of the previous event are cleared from the reused row
+        AssertJUnit.assertEquals(Arrays.asList("IBM", null, 200L), Arrays.asList(row));
+        // the truncated event is only decoded when the reader moves to it
+        try {
+            rowReader.next();
+            AssertJUnit.fail("The truncated event is decoded.");
+        } catch (SiddhiAppRuntimeException e) {
+            LOGGER.info("The truncated event failed to decode: " + e.getMessage());
+        }
+        AssertJUnit.assertEquals("WSO2", ReportJsonDecoder.decodeFirstMap(payload).get("symbol"));
+        AssertJUnit.assertNull(ReportJsonDecoder.decodeFirstMap("[]"));
+    }
+
+    @Test
+    public void reportEventBufferTest12() {
+        LOGGER.info("-------------------------------------------------------------------------------");
+        LOGGER.info("ReportEventBuffer TestCase 12 - Decode the JSON numbers into the attribute types.");
+        LOGGER.info("-------------------------------------------------------------------------------");
+
+        Attribute.Type[] columnTypes = new Attribute.Type[]{Attribute.Type.STRING, Attribute.Type.FLOAT,
+                Attribute.Type.INT};
+        ReportEventBuffer buffer = ReportEventBuffer.fromPayload(COLUMN_NAMES, columnTypes, PAYLOAD);
+        AssertJUnit.assertEquals(55.6f, buffer.getValue(0, 1));
+        AssertJUnit.assertEquals(100, buffer.getValue(0, 2));
+        AssertJUnit.assertEquals(200, buffer.groupBy("symbol", true).get("IBM").getValue(1, 1));
+
+        buffer.add("[{\"event\":{\"symbol\":\"WSO2\",\"volume\":300}}]");
+        AssertJUnit.assertNull(buffer.getValue(5, 1));
+        AssertJUnit.assertEquals(300, buffer.getValue(5, 2));
+        // a number which is not a whole number is kept as it is
+        buffer.add("{\"event\":{\"symbol\":\"IBM\",\"price\":10,\"volume\":2.5}}");
+        AssertJUnit.assertEquals(10f, buffer.getValue(6, 1));
+        AssertJUnit.assertEquals(2.5, buffer.getValue(6, 2));
+        AssertJUnit.assertEquals(100, buffer.getValue(0, 2));
+    }
+
+    @Test
+    public void reportEventBufferTest13() throws IOException {
+        LOGGER.info("--------------------------------------------------------------------------------");
+        LOGGER.info("ReportEventBuffer TestCase 13 - Keep a single instance of the repeated strings.");
+        LOGGER.info("--------------------------------------------------------------------------------");
+
+        Path spillDirectory = Files.createTempDirectory("siddhi-report-spill");
+        ReportEventBuffer buffer = new ReportEventBuffer(COLUMN_NAMES, 0, 4, spillDirectory);
+        buffer.add(PAYLOAD);
+        buffer.add(PAYLOAD);
+        // the events are spilled to the disk in segments of four, and read back with the dictionaries of the segments
+        AssertJUnit.assertEquals("WSO2", buffer.getValue(0, 0));
+        AssertJUnit.assertSame(buffer.getValue(0, 0), buffer.getValue(3, 0));
+        AssertJUnit.assertSame(buffer.getValue(4, 0), buffer.getValue(6, 0));
+        Object[] row = buffer.readRow(1, new Object[COLUMN_NAMES.length]);
+        AssertJUnit.assertSame(row[0], buffer.getValue(1, 0));
+
+        // the strings are kept as objects once most of them are distinct
+        ReportEventBuffer distinctBuffer = new ReportEventBuffer(COLUMN_NAMES);
+        for (int i = 0; i < 3000; i++) {
+            distinctBuffer.add(new Event(0, new Object[]{"symbol-" + i, 1.0, (long) i}));
+        }
+        AssertJUnit.assertEquals("symbol-2999", distinctBuffer.getValue(2999, 0));
+        AssertJUnit.assertEquals(3000, distinctBuffer.groupBy("symbol").size());
+
+        List<Map<String, Object>> events = ReportJsonDecoder.decodeMaps(PAYLOAD);
+        AssertJUnit.assertSame(events.get(0).get("symbol"), events.get(3).get("symbol"));
+        Files.delete(spillDirectory);
+    }
+
+    @Test
+    public void reportEventBufferTest14() {
+        LOGGER.info("--------------------------------------------------------------------------------");
+        LOGGER.info("ReportEventBuffer TestCase 14 - Decode the JSON payloads into the reused columns.");
+        LOGGER.info("--------------------------------------------------------------------------------");
+
+        ReportEventBuffer buffer = new ReportEventBuffer(COLUMN_NAMES, new Attribute.Type[]{Attribute.Type.STRING,
+                Attribute.Type.DOUBLE, Attribute.Type.OBJECT}, 0, 0, null);
+        buffer.add("{\"event\":{\"symbol\":\"WSO2\",\"price\":5.5E1,\"volume\":100}}");
+        buffer.add("{\"event\":{\"symbol\":\"W\\\"SO2\",\"price\":-0.5,\"volume\":{\"day\":[1,2]}}}");
+        AssertJUnit.assertEquals(55.0, buffer.getValue(0, 1));
+        AssertJUnit.assertEquals("W\"SO2", buffer.getValue(1, 0));
+        AssertJUnit.assertEquals(-0.5, buffer.getValue(1, 1));
+        AssertJUnit.assertEquals("{\"day\":[1,2]}", buffer.getValue(1, 2));
+
+        try {
+            buffer.add("{\"event\":{\"symbol\":\"IBM\",\"price\":1e400}}");
+            AssertJUnit.fail("A payload with an infinite number was decoded.");
+        } catch (SiddhiAppRuntimeException e) {
+            AssertJUnit.assertEquals(2, buffer.size());
+        }
+        // the columns of the failed payload are cleared before the next payload is decoded
+        buffer.add("{\"event\":{\"symbol\":\"WSO2\",\"volume\":true}}");
+        AssertJUnit.assertEquals(3, buffer.size());
+        AssertJUnit.assertSame(buffer.getValue(0, 0), buffer.getValue(2, 0));
+        AssertJUnit.assertNull(buffer.getValue(2, 1));
+        AssertJUnit.assertEquals(true, buffer.getValue(2, 2));
+
+        // the sign of a negative zero is kept
+        buffer.add("{\"event\":{\"symbol\":\"WSO2\",\"price\":-0.0}}");
+        AssertJUnit.assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits((Double) buffer.getValue(3,
+                1)));
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.extension.siddhi.io.report.util;
+
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+
+/**
+ * ReportRenderPipeline test case.
+ */
+public class ReportRenderPipelineTestCase {
+    private static final Logger LOGGER = Logger.getLogger(ReportRenderPipelineTestCase.class);
+    private static final String[] COLUMN_NAMES = new String[]{"symbol", "price", "volume"};
+
+    @Test
+    public void reportRenderPipelineTest1() throws InterruptedException, JMException {
+        LOGGER.info("-----------------------------------------------------------------------");
+        LOGGER.info("ReportRenderPipeline TestCase 1 - Drop the newest jobs when queue is full.");
+        LOGGER.info("-----------------------------------------------------------------------");
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Object> rendered = new CopyOnWriteArrayList<>();
+        ReportRenderPipeline pipeline = new ReportRenderPipeline("test", 1, 1, ReportConstants.ExecutorTypes.FIXED,
+                ReportConstants.OverloadPolicies.DROP_NEWEST, job -> {
+            started.countDown();
+            awaitQuietly(release);
+            rendered.add(job.getPayload());
+        });
+        ReportSinkMetrics sinkMetrics = new ReportSinkMetrics("TestSiddhiApp", "TestStream", pipeline, null);
+        sinkMetrics.register();
+        pipeline.start();
+        pipeline.submit("first");
+        AssertJUnit.assertTrue(started.await(5, TimeUnit.SECONDS));
+        pipeline.submit("second");
+        pipeline.submit("third");
+        AssertJUnit.assertEquals(1, pipeline.getDroppedJobCount());
+        AssertJUnit.assertEquals(1L, getMetric(sinkMetrics, "DroppedJobCount"));
+        sinkMetrics.unregister();
+        release.countDown();
+        pipeline.drain();
+        AssertJUnit.assertEquals(2, pipeline.getCompletedJobCount());
+        AssertJUnit.assertEquals("second", rendered.get(1));
+    }
+
+    @Test
+    public void reportRenderPipelineTest2() throws InterruptedException, JMException {
+        LOGGER.info("-----------------------------------------------------------------------------");
+        LOGGER.info("ReportRenderPipeline TestCase 2 - Coalesce the jobs into the next render job.");
+        LOGGER.info("-----------------------------------------------------------------------------");
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Object> rendered = new CopyOnWriteArrayList<>();
+        ReportRenderPipeline pipeline = new ReportRenderPipeline("test", 1, 1, ReportConstants.ExecutorTypes.FIXED,
+                ReportConstants.OverloadPolicies.COALESCE, job -> {
+            started.countDown();
+            awaitQuietly(release);
+            rendered.add(job.getPayload());
+        });
+        ReportSinkMetrics sinkMetrics = new ReportSinkMetrics("TestSiddhiApp", "TestStream", pipeline, null);
+        sinkMetrics.register();
+        pipeline.start();
+        pipeline.submit(ReportEventBuffer.fromPayload(COLUMN_NAMES,
+                "{\"event\":{\"symbol\":\"WSO2\",\"price\":55.6,\"volume\":100}}"));
+        AssertJUnit.assertTrue(started.await(5, TimeUnit.SECONDS));
+        pipeline.submit(ReportEventBuffer.fromPayload(COLUMN_NAMES,
+                "{\"event\":{\"symbol\":\"IBM\",\"price\":57.6,\"volume\":100}}"));
+        pipeline.submit(ReportEventBuffer.fromPayload(COLUMN_NAMES,
+                "{\"event\":{\"symbol\":\"GOOGLE\",\"price\":50.0,\"volume\":100}}"));
+        AssertJUnit.assertEquals(1, pipeline.getCoalescedJobCount());
+        AssertJUnit.assertEquals(1L, getMetric(sinkMetrics, "CoalescedJobCount"));
+        sinkMetrics.unregister();
+        release.countDown();
+        pipeline.drain();
+        AssertJUnit.assertEquals(2, pipeline.getCompletedJobCount());
+        AssertJUnit.assertEquals(2, ((ReportEventBuffer) rendered.get(1)).size());
+    }
+
+    @Test
+    public void reportRenderPipelineTest3() {
+        LOGGER.info("-------------------------------------------------------------------------------------");
+        LOGGER.info("ReportRenderPipeline TestCase 3 - Render the jobs with the virtual thread executor type.");
+        LOGGER.info("-------------------------------------------------------------------------------------");
+
+        List<String> threadNames = new CopyOnWriteArrayList<>();
+        // falls back to platform threads on JVMs without virtual threads.
+        ReportRenderPipeline pipeline = new ReportRenderPipeline("virtual", 4, 2, ReportConstants.ExecutorTypes
+                .VIRTUAL, ReportConstants.OverloadPolicies.BLOCK, job -> threadNames.add(Thread.currentThread()
+                .getName()));
+        pipeline.start();
+        for (int i = 0; i < 10; i++) {
+            pipeline.submit("job" + i);
+        }
+        pipeline.drain();
+        AssertJUnit.assertEquals(10, pipeline.getCompletedJobCount());
+        for (String threadName : threadNames) {
+            AssertJUnit.assertTrue(threadName.startsWith("siddhi-report-virtual-"));
+        }
+    }
+
+    @Test
+    public void reportRenderPipelineTest4() throws InterruptedException, JMException {
+        LOGGER.info("-------------------------------------------------------------------------------------");
+        LOGGER.info("ReportRenderPipeline TestCase 4 - Replace the pending job rendering to the same output.");
+        LOGGER.info("-------------------------------------------------------------------------------------");
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Object> rendered = new CopyOnWriteArrayList<>();
+        ReportRenderPipeline pipeline = new ReportRenderPipeline("test", 10, 1, ReportConstants.ExecutorTypes.FIXED,
+                ReportConstants.OverloadPolicies.BLOCK, job -> {
+            started.countDown();
+            awaitQuietly(release);
+            rendered.add(job.getPayload());
+        });
+        ReportSinkMetrics sinkMetrics = new ReportSinkMetrics("TestSiddhiApp", "TestStream", pipeline, null);
+        sinkMetrics.register();
+        pipeline.start();
+        pipeline.submit("first", "reportA");
+        AssertJUnit.assertTrue(started.await(5, TimeUnit.SECONDS));
+        pipeline.submit("second", "reportA");
+        pipeline.submit("third", "reportB");
+        pipeline.submit("fourth", "reportA");
+        AssertJUnit.assertEquals(1, pipeline.getSupersededJobCount());
+        AssertJUnit.assertEquals(1L, getMetric(sinkMetrics, "SupersededJobCount"));
+        sinkMetrics.unregister();
+        AssertJUnit.assertEquals(2, pipeline.getQueueDepth());
+        release.countDown();
+        pipeline.drain();
+        AssertJUnit.assertEquals(3, pipeline.getCompletedJobCount());
+        AssertJUnit.assertEquals("third", rendered.get(1));
+        AssertJUnit.assertEquals("fourth", rendered.get(2));
+    }
+
+    @Test
+    public void reportRenderPipelineTest5() throws InterruptedException {
+        LOGGER.info("---------------------------------------------------------------------------------------");
+        LOGGER.info("ReportRenderPipeline TestCase 5 - Keep the events of the replaced job with coalesce policy.");
+        LOGGER.info("---------------------------------------------------------------------------------------");
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Object> rendered = new CopyOnWriteArrayList<>();
+        ReportRenderPipeline pipeline = new ReportRenderPipeline("test", 10, 1, ReportConstants.ExecutorTypes.FIXED,
+                ReportConstants.OverloadPolicies.COALESCE, job -> {
+            started.countDown();
+            awaitQuietly(release);
+            rendered.add(job.getPayload());
+        });
+        pipeline.start();
+        pipeline.submit(null, "report");
+        AssertJUnit.assertTrue(started.await(5, TimeUnit.SECONDS));
+        pipeline.submit(ReportEventBuffer.fromPayload(COLUMN_NAMES,
+                "{\"event\":{\"symbol\":\"IBM\",\"price\":57.6,\"volume\":100}}"), "report");
+        pipeline.submit(ReportEventBuffer.fromPayload(COLUMN_NAMES,
+                "{\"event\":{\"symbol\":\"GOOGLE\",\"price\":50.0,\"volume\":100}}"), "report");
+        AssertJUnit.assertEquals(1, pipeline.getSupersededJobCount());
+        release.countDown();
+        pipeline.drain();
+        AssertJUnit.assertEquals(2, pipeline.getCompletedJobCount());
+        ReportEventBuffer renderedBatch = (ReportEventBuffer) rendered.get(1);
+        AssertJUnit.assertEquals(2, renderedBatch.size());
+        AssertJUnit.assertEquals("IBM", renderedBatch.getValue(0, 0));
+    }
+
+    @Test
+    public void reportRenderPipelineTest6() throws InterruptedException {
+        LOGGER.info("--------------------------------------------------------------------------------------");
+        LOGGER.info("ReportRenderPipeline TestCase 6 - Return the jobs which are not rendered within timeout.");
+        LOGGER.info("--------------------------------------------------------------------------------------");
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ReportRenderPipeline pipeline = new ReportRenderPipeline("test", 10, 1, ReportConstants.ExecutorTypes.FIXED,
+                ReportConstants.OverloadPolicies.BLOCK, job -> {
+            started.countDown();
+            awaitQuietly(release);
+        });
+        pipeline.start();
+        pipeline.submit("first", "reportA");
+        AssertJUnit.assertTrue(started.await(5, TimeUnit.SECONDS));
+        pipeline.submit("second", "reportB");
+        pipeline.submit("third", "reportC");
+        long startTime = System.currentTimeMillis();
+        List<ReportRenderJob> unrenderedJobs = pipeline.drain(200);
+        AssertJUnit.assertTrue(System.currentTimeMillis() - startTime < 2000);
+        AssertJUnit.assertEquals(2, unrenderedJobs.size());
+        AssertJUnit.assertEquals("reportB", unrenderedJobs.get(0).getOutputPath());
+        AssertJUnit.assertEquals(0, pipeline.getQueueDepth());
+    }
+
+    @Test
+    public void reportRenderPipelineTest7() throws InterruptedException {
+        LOGGER.info("-----------------------------------------------------------------------------------------");
+        LOGGER.info("ReportRenderPipeline TestCase 7 - Render each job on a virtual thread of its own.");
+        LOGGER.info("-----------------------------------------------------------------------------------------");
+
+        if (!ReportExecutors.isVirtualThreadSupported()) {
+            throw new SkipException("Virtual threads are not supported by the JVM.");
+        }
+        int jobCount = 8;
+        CountDownLatch started = new CountDownLatch(jobCount);
+        // the jobs only complete once all of them are rendering, which is not possible with a single worker.
+        ReportRenderPipeline pipeline = new ReportRenderPipeline("virtual", 16, 1, ReportConstants.ExecutorTypes
+                .VIRTUAL, ReportConstants.OverloadPolicies.BLOCK, job -> {
+            started.countDown();
+            awaitQuietly(started);
+        });
+        pipeline.start();
+        for (int i = 0; i < jobCount; i++) {
+            pipeline.submit("job" + i);
+        }
+        AssertJUnit.assertTrue(started.await(5, TimeUnit.SECONDS));
+        AssertJUnit.assertTrue(pipeline.drain(5000).isEmpty());
+        AssertJUnit.assertEquals(jobCount, pipeline.getCompletedJobCount());
+    }
+
+    @Test
+    public void reportRenderPipelineTest8() throws InterruptedException, JMException {
+        LOGGER.info("------------------------------------------------------------------------------");
+        LOGGER.info("ReportRenderPipeline TestCase 8 - Publish the queue depth and the job latency.");
+        LOGGER.info("------------------------------------------------------------------------------");
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ReportRenderPipeline pipeline = new ReportRenderPipeline("metrics", 4, 1, ReportConstants.ExecutorTypes.FIXED,
+                ReportConstants.OverloadPolicies.BLOCK, job -> {
+            started.countDown();
+            awaitQuietly(release);
+        });
+        ReportSinkMetrics sinkMetrics = new ReportSinkMetrics("TestSiddhiApp", "TestStream", pipeline, null);
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        AssertJUnit.assertFalse(mBeanServer.isRegistered(sinkMetrics.getObjectName()));
+        sinkMetrics.register();
+        pipeline.start();
+        pipeline.submit("first");
+        AssertJUnit.assertTrue(started.await(5, TimeUnit.SECONDS));
+        pipeline.submit("second");
+        AssertJUnit.assertEquals(1, mBeanServer.getAttribute(sinkMetrics.getObjectName(), "QueueDepth"));
+        Thread.sleep(50);
+        release.countDown();
+        AssertJUnit.assertTrue(pipeline.drain(5000).isEmpty());
+        AssertJUnit.assertEquals(2L, mBeanServer.getAttribute(sinkMetrics.getObjectName(), "CompletedJobCount"));
+        AssertJUnit.assertEquals(0, mBeanServer.getAttribute(sinkMetrics.getObjectName(), "QueueDepth"));
+        // the second job waits in the queue while the first one is rendered
+        AssertJUnit.assertTrue((Long) mBeanServer.getAttribute(sinkMetrics.getObjectName(), "MaxLatency") >= 50);
+        sinkMetrics.unregister();
+        AssertJUnit.assertFalse(mBeanServer.isRegistered(sinkMetrics.getObjectName()));
+    }
+
+    private static Object getMetric(ReportSinkMetrics sinkMetrics, String name) throws JMException {
+        return ManagementFactory.getPlatformMBeanServer().getAttribute(sinkMetrics.getObjectName(), name);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}